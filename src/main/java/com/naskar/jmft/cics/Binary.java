@@ -0,0 +1,92 @@
+package com.naskar.jmft.cics;
+
+/**
+ * Binary (COMP, COMP-4 and COMP-5): big-endian two's complement integer.
+ *
+ * 		Ex.: PIC S9(8) COMP
+ *
+ * 			 12345 -> 00 00 30 39
+ * 			-12345 -> FF FF CF C7
+ *
+ * 		PICTURE digits	size
+ * 		1 to 4			2 bytes
+ * 		5 to 9			4 bytes
+ * 		10 to 18		8 bytes
+ *
+ * ref.: https://www.ibm.com/support/knowledgecenter/en/SS6SG3_5.2.0/com.ibm.cobol52.ent.doc/PGandLR/ref/rlddebin.html
+ */
+public final class Binary {
+
+	private static final long[] POWERS_OF_TEN = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+		10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+		1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+	};
+
+	private Binary() {
+	}
+
+	/**
+	 * Bytes of a binary with the number of digits.
+	 */
+	public static int length(int digits) {
+		if(digits <= 4) {
+			return 2;
+		}
+		if(digits <= 9) {
+			return 4;
+		}
+		if(digits <= 18) {
+			return 8;
+		}
+		throw new JavaCicsException("Binary invalid digits: [" + digits + "]");
+	}
+
+	/**
+	 * Checks if the value fits in the PICTURE digits, like COMP and COMP-4.
+	 */
+	public static boolean fitsDigits(long value, int digits) {
+		long max = POWERS_OF_TEN[digits];
+		return value > -max && value < max;
+	}
+
+	/**
+	 * Checks if the value fits in the bytes of the field, like COMP-5.
+	 */
+	public static boolean fitsSize(long value, int size, boolean signed) {
+		if(size >= 8) {
+			return signed || value >= 0;
+		}
+		int bits = size * 8;
+		if(signed) {
+			return value >= -(1L << (bits - 1)) && value < (1L << (bits - 1));
+		}
+		return value >= 0 && value < (1L << bits);
+	}
+
+	/**
+	 * Writes the value at dst[pos] in size bytes, big-endian.
+	 */
+	public static void encode(long value, byte[] dst, int pos, int size) {
+		long v = value;
+		for(int i = pos + size - 1; i >= pos; i--) {
+			dst[i] = (byte) v;
+			v >>= 8;
+		}
+	}
+
+	/**
+	 * Reads the value at src[pos] from size bytes, big-endian.
+	 */
+	public static long decode(byte[] src, int pos, int size, boolean signed) {
+		long value = signed && src[pos] < 0 ? -1L : 0L;
+		for(int i = pos; i < pos + size; i++) {
+			value = value << 8 | (src[i] & 0xFF);
+		}
+		if(!signed && size >= 8 && value < 0) {
+			throw new JavaCicsException("Value too large for long: [" + Long.toUnsignedString(value) + "]");
+		}
+		return value;
+	}
+
+}
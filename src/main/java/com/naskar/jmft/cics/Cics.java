@@ -1,74 +1,127 @@
 package com.naskar.jmft.cics;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-import com.ibm.ctg.client.ECIRequest;
-import com.ibm.ctg.client.JavaGateway;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Call the CICS transaction using CICS Transaction Gateway (CTG) 
  * using an External Call Interface (ECI) over CICS TCPIPSERVICE Resource.
  * 
+ * The gateway connections are reused from the {@link JavaGatewayPool} of the configuration.
+ * Another {@link CicsTransport}, like {@link LocalTransport}, calls Java handlers instead.
+ * 
  *  refs.:
  * 		https://www.ibm.com/support/knowledgecenter/en/SSZHFX/welcome.html
  *  
  */
 public class Cics {
 	
-	private static final Logger logger = Logger.getLogger(Cics.class.getName());
+	/**
+	 * Largest COMMAREA of an ECI request. Channels and containers need a CTG client 
+	 * newer than the lib/ctgclient.jar of the project.
+	 */
+	public static final int MAX_COMMAREA = 32500;
 
 	private Configuration config;
 	private String transaction;
 	private String program;
+	private CicsTransport transport;
 
 	public Cics(Configuration config, String transaction, String program) {
+		this(config, transaction, program, new CtgTransport());
+	}
+
+	/**
+	 * Uses the pool instead of the one of the configuration.
+	 */
+	public Cics(Configuration config, String transaction, String program, JavaGatewayPool pool) {
+		this(config, transaction, program, new CtgTransport(pool));
+	}
+
+	public Cics(Configuration config, String transaction, String program, CicsTransport transport) {
 		this.config = config;
 		this.transaction = transaction;
 		this.program = program;
+		this.transport = transport;
+	}
+	
+	public Configuration getConfig() {
+		return config;
+	}
+
+	public String getTransaction() {
+		return transaction;
 	}
 
-	public void runECIRequest(byte[] commarea) {
-		JavaGateway jg = null;
+	public String getProgram() {
+		return program;
+	}
+	
+	public CicsTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Calls the program and returns the reply COMMAREA, 
+	 * the same array of the request unless CTG gives another one.
+	 */
+	public byte[] runECIRequest(byte[] commarea) {
+		return runECIRequest(commarea, commarea.length, commarea.length);
+	}
+
+	/**
+	 * Calls the program with a COMMAREA of commarea.length bytes (EIBCALEN), but sends 
+	 * only the first dataLength bytes and receives only the first replyLength bytes: 
+	 * CICS sees the rest as low-values, so it must be zeros in the request.
+	 *
+	 * 		Ex.: PROG1 with 2000 bytes of DFHCOMMAREA, 40 of input and 300 of output
+	 *
+	 * 			cics.runECIRequest(commarea, 40, 300);
+	 *
+	 */
+	public byte[] runECIRequest(byte[] commarea, int dataLength, int replyLength) {
+		check(commarea, dataLength, replyLength);
+		return transport.call(config, transaction, program, commarea, dataLength, replyLength);
+	}
+
+	/**
+	 * Calls the program with an asynchronous ECI request (ECI_ASYNC): the caller 
+	 * isn't blocked while CICS works and the future is completed with the reply 
+	 * COMMAREA by the CTG callback. The gateway connection is borrowed from the 
+	 * pool until the reply arrives.
+	 *
+	 * 		Ex.:
+	 *
+	 * 			cics.runECIRequestAsync(comm.to(data))
+	 * 				.thenAccept(reply -> comm.from(reply, data));
+	 *
+	 */
+	public CompletableFuture<byte[]> runECIRequestAsync(byte[] commarea) {
+		return runECIRequestAsync(commarea, commarea.length, commarea.length);
+	}
+
+	/**
+	 * Asynchronous {@link #runECIRequest(byte[], int, int)}.
+	 */
+	public CompletableFuture<byte[]> runECIRequestAsync(byte[] commarea, int dataLength, int replyLength) {
 		try {
-			ECIRequest req = new ECIRequest(ECIRequest.ECI_SYNC, 
-					config.getRegion(), 
-					config.getUser(), 
-					config.getPw(),
-					program, 
-					transaction, 
-					commarea);
-			
-			jg = new JavaGateway(config.getUrl(), config.getPort());
-			int rc = jg.flow(req);
-			
-			if(rc != 0) {
-				
-				StringBuilder msg = new StringBuilder("Error: RC [" + rc + "]: [" + req.getRcString() + "] CICS: [" + req.getCicsRcString() + "]");
-				
-				if (req.getCicsRc() == ECIRequest.ECI_ERR_SECURITY_ERROR 
-                        || (req.Abend_Code != null && req.Abend_Code.equalsIgnoreCase("AEY7"))) {
-					msg.append("Invalid username or password.");
-				}
-				
-				if (req.getCicsRc() == ECIRequest.ECI_ERR_TRANSACTION_ABEND) { 
-					msg.append(" ABEND: [" + req.Abend_Code + "]");
-				}
-				
-				throw new JavaCicsException(msg.toString());
-			}
-			
-		} catch (Exception e) {
-			throw new JavaCicsException(e);
-			
-		} finally {
-			if(jg != null && jg.isOpen()) {
-				try {
-					jg.close();
-				} catch(Exception e) {
-					logger.log(Level.WARNING, e.getMessage(), e);
-				}
-			}
+			check(commarea, dataLength, replyLength);
+		} catch (JavaCicsException e) {
+			CompletableFuture<byte[]> future = new CompletableFuture<byte[]>();
+			future.completeExceptionally(e);
+			return future;
+		}
+		return transport.callAsync(config, transaction, program, commarea, dataLength, replyLength);
+	}
+	
+	static void check(byte[] commarea, int dataLength, int replyLength) {
+		if(commarea.length > MAX_COMMAREA) {
+			throw new JavaCicsException("Value invalid size: [" + commarea.length + "] : [" + MAX_COMMAREA + "]");
+		}
+		if(dataLength < 0 || dataLength > commarea.length) {
+			throw new JavaCicsException("Invalid data length: [" + dataLength + "] : [" + commarea.length + "]");
+		}
+		if(replyLength < 0 || replyLength > commarea.length) {
+			throw new JavaCicsException("Invalid reply length: [" + replyLength + "] : [" + commarea.length + "]");
 		}
 	}
 
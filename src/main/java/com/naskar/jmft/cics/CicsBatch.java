@@ -0,0 +1,239 @@
+package com.naskar.jmft.cics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Calls one program with many COMMAREAs, keeping up to inFlight asynchronous
+ * requests (ECI_ASYNC) over the pooled gateways instead of one at a time.
+ *
+ * An error ends only its own request: it is given as a {@link CicsResult} 
+ * and the batch goes on.
+ *
+ * 		Ex.:
+ *
+ * 			CicsBatch batch = new CicsBatch(cics, 32);
+ *
+ * 			batch.forEachOrdered(commareas, result -> {
+ * 				if(result.isSuccess()) {
+ * 					comm.from(result.getCommarea(), data);
+ * 				} else {
+ * 					logger.warning(result.toString());
+ * 				}
+ * 			});
+ *
+ * The consumer is called by one thread at a time. When it throws, the batch
+ * stops sending requests, gives the ones in flight and throws the first error.
+ * When the commareas throw, the ones in flight are given before the error.
+ *
+ * Each request in flight holds a gateway of the pool until its reply, so with 
+ * a {@link CtgTransport} inFlight is capped at the max size of its {@link JavaGatewayPool}. 
+ * With another transport the connections under it must allow inFlight requests.
+ */
+public class CicsBatch {
+
+	private final Function<byte[], CompletableFuture<byte[]>> call;
+	private final int inFlight;
+
+	public CicsBatch(final Cics cics, int inFlight) {
+		this(new Function<byte[], CompletableFuture<byte[]>>() {
+			@Override
+			public CompletableFuture<byte[]> apply(byte[] commarea) {
+				return cics.runECIRequestAsync(commarea);
+			}
+		}, limit(cics, inFlight));
+	}
+
+	CicsBatch(Function<byte[], CompletableFuture<byte[]>> call, int inFlight) {
+		if(inFlight < 1) {
+			throw new IllegalArgumentException("inFlight must be positive: " + inFlight);
+		}
+		this.call = call;
+		this.inFlight = inFlight;
+	}
+
+	private static int limit(Cics cics, int inFlight) {
+		if(cics.getTransport() instanceof CtgTransport) {
+			int gateways = ((CtgTransport) cics.getTransport()).pool(cics.getConfig()).getMaxSize();
+			return Math.min(inFlight, gateways);
+		}
+		return inFlight;
+	}
+
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Calls all the COMMAREAs and returns the results in the same order.
+	 */
+	public List<CicsResult> run(Iterable<byte[]> commareas) {
+		final List<CicsResult> results = new ArrayList<CicsResult>();
+		forEachOrdered(commareas.iterator(), new Consumer<CicsResult>() {
+			@Override
+			public void accept(CicsResult result) {
+				results.add(result);
+			}
+		});
+		return results;
+	}
+
+	/**
+	 * Gives the results in the order of the COMMAREAs, holding the early ones
+	 * until the previous are done. Returns when all are given.
+	 */
+	public void forEachOrdered(Iterator<byte[]> commareas, Consumer<CicsResult> consumer) {
+		run(commareas, new Ordered(consumer));
+	}
+
+	/**
+	 * Gives the results as the requests complete. Returns when all are given.
+	 */
+	public void forEach(Iterator<byte[]> commareas, Consumer<CicsResult> consumer) {
+		run(commareas, new Unordered(consumer));
+	}
+
+	private void run(Iterator<byte[]> commareas, final Delivery delivery) {
+		final Semaphore permits = new Semaphore(inFlight);
+		long index = 0;
+		try {
+			try {
+				while(commareas.hasNext() && !delivery.failed()) {
+					byte[] commarea = commareas.next();
+					permits.acquire();
+
+					final long i = index++;
+					CompletableFuture<byte[]> future = null;
+					try {
+						future = call.apply(commarea);
+					} catch (Exception e) {
+						future = new CompletableFuture<byte[]>();
+						future.completeExceptionally(e);
+					}
+
+					future.whenComplete(new BiConsumer<byte[], Throwable>() {
+						@Override
+						public void accept(byte[] reply, Throwable error) {
+							permits.release(delivery.deliver(new CicsResult(i, reply, error == null ? null : error(error))));
+						}
+					});
+				}
+
+			} finally {
+				// the whole window back means all the results were given, 
+				// also when the commareas throw
+				permits.acquire(inFlight);
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JavaCicsException(e);
+		}
+
+		delivery.rethrow();
+	}
+
+	private static JavaCicsException error(Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		return cause instanceof JavaCicsException ? (JavaCicsException) cause : new JavaCicsException(cause.getMessage(), cause);
+	}
+
+	/**
+	 * Gives the results to the consumer. An error of the consumer doesn't stop 
+	 * the delivery of the results in flight, so all the permits come back: 
+	 * the first one is kept, no new request is sent and run throws it at the end.
+	 */
+	private abstract static class Delivery {
+
+		private final Consumer<CicsResult> consumer;
+		private volatile Throwable failure;
+
+		Delivery(Consumer<CicsResult> consumer) {
+			this.consumer = consumer;
+		}
+
+		/**
+		 * Returns the permits to give back.
+		 */
+		abstract int deliver(CicsResult result);
+
+		void accept(CicsResult result) {
+			try {
+				consumer.accept(result);
+			} catch (Throwable e) {
+				if(failure == null) {
+					failure = e;
+				}
+			}
+		}
+
+		boolean failed() {
+			return failure != null;
+		}
+
+		void rethrow() {
+			if(failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if(failure instanceof Error) {
+				throw (Error) failure;
+			}
+			if(failure != null) {
+				throw new JavaCicsException(failure.getMessage(), failure);
+			}
+		}
+
+	}
+
+	private static class Unordered extends Delivery {
+
+		Unordered(Consumer<CicsResult> consumer) {
+			super(consumer);
+		}
+
+		@Override
+		synchronized int deliver(CicsResult result) {
+			accept(result);
+			return 1;
+		}
+
+	}
+
+	/**
+	 * Holds the results after a missing one, so the permit of a request is
+	 * given back only when its result is delivered and the window stays bounded.
+	 */
+	private static class Ordered extends Delivery {
+
+		private final Map<Long, CicsResult> pending = new HashMap<Long, CicsResult>();
+		private long next;
+
+		Ordered(Consumer<CicsResult> consumer) {
+			super(consumer);
+		}
+
+		@Override
+		synchronized int deliver(CicsResult result) {
+			pending.put(result.getIndex(), result);
+			int count = 0;
+			CicsResult r = null;
+			while((r = pending.remove(next)) != null) {
+				next++;
+				count++;
+				accept(r);
+			}
+			return count;
+		}
+
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.naskar.jmft.cics;
+
+/**
+ * The request didn't get to CICS or its reply was lost: no connection, 
+ * region down or timeout. Unlike an ABEND, it tells about the health of the region.
+ */
+public class CicsConnectionException extends JavaCicsException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CicsConnectionException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public CicsConnectionException(Exception cause) {
+		super(cause);
+	}
+
+	public CicsConnectionException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,269 @@
+package com.naskar.jmft.cics;
+
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the ECI calls of {@link Cics} limiting the calls in flight per CICS region,
+ * so many concurrent callers don't overload the TOR. The callers over the limit 
+ * wait in arrival order.
+ *
+ * The calls run on virtual threads when the JVM has them (Java 21+), 
+ * otherwise on daemon platform threads. The submitted calls over the limit wait 
+ * in a queue of the region, not in a thread, and start when a call ends.
+ *
+ * 		Ex.:
+ *
+ * 			CicsExecutor executor = new CicsExecutor(20);
+ * 			executor.setMaxInFlight("CICS1", 50);
+ *
+ * 			executor.submit(cics, comm.to(data))
+ * 				.thenAccept(reply -> comm.from(reply, data));
+ *
+ */
+public class CicsExecutor implements AutoCloseable {
+
+	private static final Logger logger = Logger.getLogger(CicsExecutor.class.getName());
+
+	private final ExecutorService executor;
+	private final int defaultMaxInFlight;
+	private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<String, Limit>();
+
+	private static class Limit extends Semaphore {
+
+		private static final long serialVersionUID = 1L;
+
+		final Queue<Runnable> waiting = new ConcurrentLinkedQueue<Runnable>();
+		volatile int max;
+
+		Limit(int max) {
+			super(max, true);
+			this.max = max;
+		}
+
+		synchronized void resize(int max) {
+			int delta = max - this.max;
+			this.max = max;
+			if(delta > 0) {
+				release(delta);
+			} else {
+				// the calls in flight over the new limit end before others start
+				reducePermits(-delta);
+			}
+		}
+
+	}
+
+	/**
+	 * Calls on virtual threads, or platform threads before Java 21, 
+	 * with the limit of calls in flight of each region.
+	 */
+	public CicsExecutor(int maxInFlight) {
+		this(newExecutor(), maxInFlight);
+	}
+
+	public CicsExecutor(ExecutorService executor, int maxInFlight) {
+		if(maxInFlight < 1) {
+			throw new IllegalArgumentException("Invalid max in flight: [" + maxInFlight + "]");
+		}
+		this.executor = executor;
+		this.defaultMaxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Virtual thread per task executor when available, created by reflection 
+	 * so the library still runs on Java 8.
+	 */
+	static ExecutorService newExecutor() {
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) m.invoke(null);
+		} catch (Exception e) {
+			logger.log(Level.FINE, "Virtual threads not available, using platform threads.");
+		}
+
+		final AtomicInteger count = new AtomicInteger();
+		return Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "jmft-cics-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Changes the limit of the region, the calls in flight and waiting count against the new one.
+	 */
+	public void setMaxInFlight(String region, int maxInFlight) {
+		if(maxInFlight < 1) {
+			throw new IllegalArgumentException("Invalid max in flight: [" + maxInFlight + "]");
+		}
+		Limit limit = limits.get(region);
+		if(limit == null) {
+			limit = limits.putIfAbsent(region, new Limit(maxInFlight));
+			if(limit == null) {
+				return;
+			}
+		}
+		limit.resize(maxInFlight);
+		dispatch(limit);
+	}
+
+	private Limit limit(String region) {
+		Limit limit = limits.get(region);
+		if(limit == null) {
+			limit = new Limit(defaultMaxInFlight);
+			Limit previous = limits.putIfAbsent(region, limit);
+			if(previous != null) {
+				limit = previous;
+			}
+		}
+		return limit;
+	}
+
+	/**
+	 * Runs the ECI request in the executor and completes with the reply COMMAREA,
+	 * the one returned by {@link Cics#runECIRequest(byte[])}.
+	 */
+	public CompletableFuture<byte[]> submit(final Cics cics, final byte[] commarea) {
+		return submit(cics.getConfig().getRegion(), new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws Exception {
+				return cics.runECIRequest(commarea);
+			}
+		});
+	}
+
+	/**
+	 * Runs the call in the executor within the limit of the region. Over the limit 
+	 * the call waits in the queue of the region and starts when a permit is released.
+	 */
+	public <T> CompletableFuture<T> submit(String region, final Callable<T> call) {
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		final Limit limit = limit(region);
+		limit.waiting.add(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							T result = null;
+							Throwable error = null;
+							try {
+								result = invoke(call);
+							} catch (Throwable e) {
+								error = e;
+							} finally {
+								// the permit is back before the caller sees the result
+								release(limit);
+							}
+
+							if(error == null) {
+								future.complete(result);
+							} else {
+								future.completeExceptionally(error);
+							}
+						}
+					});
+				} catch (Exception e) {
+					// runs in dispatch, which goes on with the next one
+					limit.release();
+					future.completeExceptionally(new JavaCicsException(e));
+				}
+			}
+		});
+		dispatch(limit);
+		return future;
+	}
+
+	/**
+	 * Starts the waiting calls while the region has permits.
+	 */
+	private void dispatch(Limit limit) {
+		while(!limit.waiting.isEmpty() && limit.tryAcquire()) {
+			Runnable start = limit.waiting.poll();
+			if(start == null) {
+				// taken by another thread, check again for one added meanwhile
+				limit.release();
+			} else {
+				start.run();
+			}
+		}
+	}
+
+	private void release(Limit limit) {
+		limit.release();
+		dispatch(limit);
+	}
+
+	/**
+	 * Runs the ECI request in the calling thread, like a virtual thread, within the limit of the region.
+	 */
+	public void run(final Cics cics, final byte[] commarea) {
+		call(cics.getConfig().getRegion(), new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				cics.runECIRequest(commarea);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Runs the call in the calling thread within the limit of the region.
+	 */
+	public <T> T call(String region, Callable<T> call) {
+		Limit limit = limit(region);
+		try {
+			limit.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JavaCicsException(e);
+		}
+
+		try {
+			return invoke(call);
+		} finally {
+			release(limit);
+		}
+	}
+
+	private static <T> T invoke(Callable<T> call) {
+		try {
+			return call.call();
+		} catch (JavaCicsException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new JavaCicsException(e);
+		}
+	}
+
+	/**
+	 * Calls in flight in the region.
+	 */
+	public int getInFlight(String region) {
+		Limit limit = limits.get(region);
+		return limit == null ? 0 : limit.max - limit.availablePermits();
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+}
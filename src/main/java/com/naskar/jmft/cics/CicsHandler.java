@@ -0,0 +1,24 @@
+package com.naskar.jmft.cics;
+
+/**
+ * Java stand-in of a CICS program for {@link LocalTransport}: reads and 
+ * updates the COMMAREA in place, like the LINKAGE SECTION of the program.
+ *
+ * 		Ex.:
+ *
+ * 			transport.register("PROG1", (transaction, commarea) -> {
+ * 				Data data = new Data();
+ * 				comm.from(commarea, data);
+ * 				...
+ * 				comm.encodeTo(data, commarea, 0);
+ * 			});
+ *
+ */
+public interface CicsHandler {
+
+	/**
+	 * An exception is given to the caller as an ABEND of the program.
+	 */
+	void handle(String transaction, byte[] commarea) throws Exception;
+
+}
@@ -0,0 +1,234 @@
+package com.naskar.jmft.cics;
+
+import java.io.IOException;
+
+import com.ibm.ctg.client.ECIRequest;
+import com.ibm.ctg.client.JavaGateway;
+import com.naskar.jmft.pool.PoolException;
+
+/**
+ * Extended logical unit of work (LUW): several programs called with ECI_EXTENDED
+ * and one syncpoint at the end, by {@link #commit()} or {@link #backout()}.
+ *
+ * The LUW keeps one gateway connection of the pool from the first call to the end,
+ * since CICS binds the LUW token to it. It isn't thread-safe.
+ *
+ * 		Ex.:
+ *
+ * 			try(CicsLuw luw = new CicsLuw(config)) {
+ * 				luw.runECIRequest(debit, comm.to(from));
+ * 				luw.runECIRequest(credit, comm.to(to));
+ * 				luw.commit();
+ * 			}
+ *
+ * Closing without commit backs out. A failed call ends the LUW:
+ *
+ * 		ABEND, rolled back     CICS has backed out the LUW
+ * 		timeout, no CICS,      the outcome is unknown, the connection is closed and
+ * 		lost connection        a {@link CicsLuwInDoubtException} is thrown
+ * 		other errors           the request was rejected, the LUW is backed out 
+ * 		                       explicitly, or is in doubt when the backout fails
+ *
+ *  refs.:
+ * 		https://www.ibm.com/support/knowledgecenter/en/SSZHFX/welcome.html
+ */
+public class CicsLuw implements AutoCloseable {
+
+	private final Configuration config;
+	private final JavaGatewayPool pool;
+	private JavaGateway jg;
+	private int token = ECIRequest.ECI_LUW_NEW;
+	private boolean ended;
+
+	public CicsLuw(Configuration config) {
+		this(config, JavaGatewayPool.of(config));
+	}
+
+	public CicsLuw(Configuration config, JavaGatewayPool pool) {
+		this.config = config;
+		this.pool = pool;
+	}
+
+	/**
+	 * Calls the program of the Cics in the LUW.
+	 */
+	public byte[] runECIRequest(Cics cics, byte[] commarea) {
+		return runECIRequest(cics.getTransaction(), cics.getProgram(), commarea);
+	}
+
+	/**
+	 * Calls the program in the LUW and returns the reply COMMAREA.
+	 */
+	public byte[] runECIRequest(String transaction, String program, byte[] commarea) {
+		if(ended) {
+			throw new JavaCicsException("LUW already ended.");
+		}
+		Cics.check(commarea, commarea.length, commarea.length);
+
+		ECIRequest req = request(program, transaction, commarea);
+		req.Extend_Mode = ECIRequest.ECI_EXTENDED;
+		req.Luw_Token = token;
+
+		int rc = flow(req);
+		if(rc != 0) {
+			throw fail(req, rc);
+		}
+
+		token = req.Luw_Token;
+		return req.Commarea != null ? req.Commarea : commarea;
+	}
+
+	/**
+	 * Syncpoint of all the calls of the LUW.
+	 */
+	public void commit() {
+		syncpoint(ECIRequest.ECI_COMMIT);
+	}
+
+	/**
+	 * Rollback of all the calls of the LUW.
+	 */
+	public void backout() {
+		syncpoint(ECIRequest.ECI_BACKOUT);
+	}
+
+	public boolean isEnded() {
+		return ended;
+	}
+
+	/**
+	 * Backs out the LUW when it wasn't ended.
+	 */
+	@Override
+	public void close() {
+		if(!ended) {
+			backout();
+		}
+	}
+
+	private void syncpoint(int mode) {
+		if(ended) {
+			throw new JavaCicsException("LUW already ended.");
+		}
+
+		if(token == ECIRequest.ECI_LUW_NEW) {
+			// no call, nothing to end in CICS
+			end(false);
+			return;
+		}
+
+		ECIRequest req = request(null, null, null);
+		req.Extend_Mode = mode;
+		req.Luw_Token = token;
+
+		int rc = flow(req);
+		if(rc == 0) {
+			end(false);
+			return;
+		}
+
+		JavaCicsException error = CtgTransport.error(req, rc);
+		if(isInDoubt(rc)) {
+			end(true);
+			throw new CicsLuwInDoubtException(error.getMessage(), error);
+		}
+		end(false);
+		throw error;
+	}
+
+	/**
+	 * Ends the LUW after a failed call, see the class doc.
+	 */
+	private JavaCicsException fail(ECIRequest req, int rc) {
+		JavaCicsException error = CtgTransport.error(req, rc);
+
+		if(isBackedOut(rc)) {
+			end(false);
+			return error;
+		}
+
+		if(isInDoubt(rc)) {
+			end(true);
+			return new CicsLuwInDoubtException(error.getMessage(), error);
+		}
+
+		if(token != ECIRequest.ECI_LUW_NEW) {
+			ECIRequest backout = request(null, null, null);
+			backout.Extend_Mode = ECIRequest.ECI_BACKOUT;
+			backout.Luw_Token = token;
+
+			int backoutRc = 0;
+			try {
+				backoutRc = flow(backout);
+			} catch (JavaCicsException e) {
+				// ended by flow, the error of the program stays the one given
+				CicsLuwInDoubtException doubt = new CicsLuwInDoubtException(error.getMessage(), error);
+				doubt.addSuppressed(e);
+				return doubt;
+			}
+
+			if(backoutRc != 0) {
+				end(true);
+				return new CicsLuwInDoubtException(error.getMessage(), error);
+			}
+		}
+
+		end(false);
+		return error;
+	}
+
+	private static boolean isBackedOut(int rc) {
+		return rc == ECIRequest.ECI_ERR_TRANSACTION_ABEND 
+				|| rc == ECIRequest.ECI_ERR_ROLLEDBACK;
+	}
+
+	private static boolean isInDoubt(int rc) {
+		return rc == ECIRequest.ECI_ERR_NO_CICS 
+				|| rc == ECIRequest.ECI_ERR_CICS_DIED
+				|| rc == ECIRequest.ECI_ERR_NO_REPLY
+				|| rc == ECIRequest.ECI_ERR_RESPONSE_TIMEOUT
+				|| rc == ECIRequest.ECI_ERR_SYSTEM_ERROR;
+	}
+
+	private ECIRequest request(String program, String transaction, byte[] commarea) {
+		return new ECIRequest(ECIRequest.ECI_SYNC, 
+				config.getRegion(), 
+				config.getUser(), 
+				config.getPw(),
+				program, 
+				transaction, 
+				commarea);
+	}
+
+	private int flow(ECIRequest req) {
+		try {
+			if(jg == null) {
+				jg = pool.borrow();
+			}
+			return jg.flow(req);
+
+		} catch (IOException e) {
+			end(true);
+			throw new CicsLuwInDoubtException(e.getMessage(), e);
+
+		} catch (PoolException e) {
+			end(false);
+			throw new JavaCicsException(e.getMessage(), e);
+
+		}
+	}
+
+	private void end(boolean broken) {
+		ended = true;
+		token = ECIRequest.ECI_LUW_NEW;
+		if(jg != null) {
+			if(broken) {
+				pool.invalidate(jg);
+			} else {
+				pool.release(jg);
+			}
+			jg = null;
+		}
+	}
+
+}
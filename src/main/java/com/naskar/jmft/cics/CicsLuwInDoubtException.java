@@ -0,0 +1,15 @@
+package com.naskar.jmft.cics;
+
+/**
+ * The outcome of a {@link CicsLuw} is unknown, like after a timeout or a lost connection:
+ * CICS may have committed or backed out the calls. Check the state in the region.
+ */
+public class CicsLuwInDoubtException extends JavaCicsException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CicsLuwInDoubtException(String message, Throwable cause) {
+		super("LUW in doubt: " + message, cause);
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.naskar.jmft.cics;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * A CICS program bound to its transaction, connection and POJOs: encodes the input,
+ * calls the program and decodes the reply in one call.
+ *
+ * The codecs of the input and output classes and the gateway pool are resolved once,
+ * at construction, and the COMMAREA buffers are reused between calls.
+ * It is thread-safe, so one instance per program can be shared.
+ *
+ * 		Ex.:
+ *
+ * 			CicsProgram<Request, Response> prog1 = new CicsProgram<Request, Response>(
+ * 				config, "PRG1", "PROG1", new CommArea(), Request.class, Response.class);
+ *
+ * 			Response response = prog1.call(request);
+ *
+ * The COMMAREA has the size of the largest of the input and the output, like the
+ * LINKAGE SECTION of the program, or the fixed length given with {@link #setLength(int)}.
+ * Only the bytes of the input are sent and only the bytes of the output are received,
+ * see {@link Cics#runECIRequest(byte[], int, int)}. The output class needs a no-arg constructor.
+ *
+ */
+public class CicsProgram<I, O> {
+
+	private static final int BUFFERS = 16;
+
+	private final Cics cics;
+	private final CommArea comm;
+	private final Class<O> output;
+	private final Constructor<O> constructor;
+	private final CommAreaCodec<Object> inputCodec;
+	private final CommAreaCodec<Object> outputCodec;
+	private final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(BUFFERS);
+	private volatile int length;
+
+	public CicsProgram(Configuration config, String transaction, String program,
+			CommArea comm, Class<I> input, Class<O> output) {
+		this(new Cics(config, transaction, program, JavaGatewayPool.of(config)), comm, input, output);
+	}
+
+	public CicsProgram(Cics cics, CommArea comm, Class<I> input, Class<O> output) {
+		this.cics = cics;
+		this.comm = comm;
+		this.output = output;
+		this.inputCodec = comm.codec(input);
+		this.outputCodec = comm.codec(output);
+		try {
+			this.constructor = output.getDeclaredConstructor();
+			this.constructor.setAccessible(true);
+		} catch (Exception e) {
+			throw new JavaCicsException("ERROR on output: " + output.getName(), e);
+		}
+	}
+
+	public Cics getCics() {
+		return cics;
+	}
+
+	public CommArea getCommArea() {
+		return comm;
+	}
+
+	/**
+	 * Fixed COMMAREA length (EIBCALEN) of the program, like 2000 for a 
+	 * 01 DFHCOMMAREA PIC X(2000), even when the input and output are smaller.
+	 */
+	public CicsProgram<I, O> setLength(int length) {
+		this.length = length;
+		return this;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Calls the program and returns a new output with the reply.
+	 */
+	public O call(I input) {
+		return call(input, newOutput());
+	}
+
+	/**
+	 * Calls the program and injects the reply into the output.
+	 */
+	public O call(I input, O output) {
+		byte[] buffer = borrow(size(input, output));
+		try {
+			int dataLength = encode(input, buffer);
+			decode(cics.runECIRequest(buffer, dataLength, replyLength(output, buffer)), output);
+			return output;
+
+		} finally {
+			release(buffer);
+		}
+	}
+
+	/**
+	 * Calls the program with an asynchronous ECI request,
+	 * see {@link Cics#runECIRequestAsync(byte[])}.
+	 */
+	public CompletableFuture<O> callAsync(I input) {
+		final O output = newOutput();
+		final byte[] buffer = borrow(size(input, output));
+		CompletableFuture<byte[]> future = null;
+		try {
+			int dataLength = encode(input, buffer);
+			future = cics.runECIRequestAsync(buffer, dataLength, replyLength(output, buffer));
+		} catch (RuntimeException e) {
+			release(buffer);
+			throw e;
+		}
+
+		return future.handle(new BiFunction<byte[], Throwable, O>() {
+			@Override
+			public O apply(byte[] reply, Throwable error) {
+				try {
+					if(error != null) {
+						throw error instanceof JavaCicsException ? (JavaCicsException) error : new JavaCicsException(error.getMessage(), error);
+					}
+					decode(reply, output);
+					return output;
+
+				} finally {
+					release(buffer);
+				}
+			}
+		});
+	}
+
+	private O newOutput() {
+		try {
+			return constructor.newInstance();
+		} catch (Exception e) {
+			throw new JavaCicsException("ERROR on output: " + output.getName(), e);
+		}
+	}
+
+	private int size(I input, O output) {
+		try {
+			int size = Math.max(inputCodec.length(input), CommArea.maxLength(outputCodec, output));
+			if(length > 0) {
+				if(size > length) {
+					throw new JavaCicsException("Value invalid size: [" + size + "] : [" + length + "]");
+				}
+				return length;
+			}
+			return size;
+			
+		} catch (JavaCicsException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new JavaCicsException(e);
+		}
+	}
+
+	private int replyLength(O output, byte[] buffer) {
+		return Math.min(CommArea.maxLength(outputCodec, output), buffer.length);
+	}
+
+	/**
+	 * Writes the input and returns its length, the rest of the COMMAREA is low-values.
+	 */
+	private int encode(I input, byte[] buffer) {
+		try {
+			int end = inputCodec.encode(input, buffer, 0);
+			Arrays.fill(buffer, end, buffer.length, (byte)0);
+			return end;
+		} catch (Exception e) {
+			throw new JavaCicsException(e);
+		}
+	}
+
+	private void decode(byte[] reply, O output) {
+		if(reply.length < CommArea.maxLength(outputCodec, output)) {
+			comm.decodeFrom(reply, 0, output);
+			return;
+		}
+		try {
+			outputCodec.decode(reply, 0, output);
+		} catch (Exception e) {
+			throw new JavaCicsException(e);
+		}
+	}
+
+	private byte[] borrow(int size) {
+		byte[] buffer = buffers.poll();
+		if(buffer == null || buffer.length != size) {
+			buffer = new byte[size];
+		}
+		return buffer;
+	}
+
+	private void release(byte[] buffer) {
+		buffers.offer(buffer);
+	}
+
+}
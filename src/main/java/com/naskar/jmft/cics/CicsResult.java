@@ -0,0 +1,42 @@
+package com.naskar.jmft.cics;
+
+/**
+ * Reply of one request of a batch: the COMMAREA, or the error of the request.
+ */
+public class CicsResult {
+
+	private final long index;
+	private final byte[] commarea;
+	private final JavaCicsException error;
+
+	CicsResult(long index, byte[] commarea, JavaCicsException error) {
+		this.index = index;
+		this.commarea = commarea;
+		this.error = error;
+	}
+
+	/**
+	 * Position of the request in the batch, from 0.
+	 */
+	public long getIndex() {
+		return index;
+	}
+
+	public byte[] getCommarea() {
+		return commarea;
+	}
+
+	public JavaCicsException getError() {
+		return error;
+	}
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	@Override
+	public String toString() {
+		return "CicsResult [index=" + index + ", " + (error == null ? "length=" + commarea.length : "error=" + error.getMessage()) + "]";
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.naskar.jmft.cics;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Flows the ECI requests of {@link Cics}: {@link CtgTransport} to a CICS Transaction 
+ * Gateway, {@link LocalTransport} to Java handlers in the same JVM and 
+ * {@link SocketTransport} to a {@link LoopbackServer}, to measure the client side 
+ * without a CTG or a region.
+ *
+ * The COMMAREA has commarea.length bytes, only the first dataLength are sent
+ * and only the first replyLength are received, see {@link Cics#runECIRequest(byte[], int, int)}.
+ */
+public interface CicsTransport {
+
+	/**
+	 * Calls the program and returns the reply COMMAREA.
+	 */
+	byte[] call(Configuration config, String transaction, String program, 
+			byte[] commarea, int dataLength, int replyLength);
+
+	/**
+	 * Calls the program without blocking the caller.
+	 */
+	CompletableFuture<byte[]> callAsync(Configuration config, String transaction, String program, 
+			byte[] commarea, int dataLength, int replyLength);
+
+}
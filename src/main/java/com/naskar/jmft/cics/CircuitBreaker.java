@@ -0,0 +1,173 @@
+package com.naskar.jmft.cics;
+
+/**
+ * Circuit breaker of the calls to a CICS region, over the outcome of the last calls.
+ *
+ * CLOSED: the calls go on. When the failed or slow calls reach the failure rate
+ * of the window, it opens.
+ *
+ * OPEN: the calls fail fast, without a connection or a thread waiting for the 
+ * region, until the open time passes.
+ *
+ * HALF_OPEN: only the probe calls go on. It closes when all succeed, 
+ * and opens again on the first failure.
+ *
+ * Each call counts in the state it was allowed in: the calls that end after 
+ * a change of state, like a call started before it opened that ends while 
+ * it probes, are not counted.
+ *
+ * 		Ex.: opens with half of the last 20 calls failed or over 5 s, probes after 30 s
+ *
+ * 			new CircuitBreaker(20, 10, 0.5, 5000, 30000, 3);
+ *
+ */
+public class CircuitBreaker {
+
+	public enum State { CLOSED, OPEN, HALF_OPEN }
+
+	public static final int DEFAULT_WINDOW = 20;
+	public static final int DEFAULT_MIN_CALLS = 10;
+	public static final double DEFAULT_FAILURE_RATE = 0.5;
+	public static final long DEFAULT_SLOW_CALL = 0;
+	public static final long DEFAULT_OPEN_TIME = 30000;
+	public static final int DEFAULT_PROBES = 3;
+
+	private final boolean[] window;
+	private final int minCalls;
+	private final double failureRate;
+	private final long slowCall;
+	private final long openTime;
+	private final int probes;
+
+	private State state = State.CLOSED;
+	private int calls;
+	private int failures;
+	private int next;
+	private long openedAt;
+	private int probing;
+	private int probed;
+	private long generation;
+
+	public CircuitBreaker() {
+		this(DEFAULT_WINDOW, DEFAULT_MIN_CALLS, DEFAULT_FAILURE_RATE, DEFAULT_SLOW_CALL, DEFAULT_OPEN_TIME, DEFAULT_PROBES);
+	}
+
+	/**
+	 * @param window calls of the failure rate
+	 * @param minCalls calls before the failure rate counts
+	 * @param failureRate rate of failed calls, from 0 to 1, that opens the circuit
+	 * @param slowCall ms of a call counted as failed, or 0 for no limit
+	 * @param openTime ms open before the probes
+	 * @param probes calls of the half open state
+	 */
+	public CircuitBreaker(int window, int minCalls, double failureRate, long slowCall, long openTime, int probes) {
+		if(window < 1 || minCalls < 1 || minCalls > window || probes < 1 || failureRate <= 0 || failureRate > 1) {
+			throw new IllegalArgumentException("Invalid circuit breaker: [" + window + ", " + minCalls + ", " + failureRate + ", " + probes + "]");
+		}
+		this.window = new boolean[window];
+		this.minCalls = minCalls;
+		this.failureRate = failureRate;
+		this.slowCall = slowCall;
+		this.openTime = openTime;
+		this.probes = probes;
+	}
+
+	/**
+	 * The permit of the call, or -1 when it can't go on. A call allowed must end with 
+	 * {@link #onSuccess(long, long)} or {@link #onError(long, long)} and its permit.
+	 */
+	public synchronized long tryAcquire() {
+		if(state == State.OPEN) {
+			if(System.currentTimeMillis() - openedAt < openTime) {
+				return -1;
+			}
+			state = State.HALF_OPEN;
+			generation++;
+			probing = 0;
+			probed = 0;
+		}
+
+		if(state == State.HALF_OPEN) {
+			if(probing >= probes) {
+				return -1;
+			}
+			probing++;
+		}
+
+		return generation;
+	}
+
+	/**
+	 * The call ended with the reply in the elapsed ms.
+	 */
+	public synchronized void onSuccess(long permit, long elapsed) {
+		record(permit, slowCall > 0 && elapsed >= slowCall);
+	}
+
+	/**
+	 * The call failed after the elapsed ms.
+	 */
+	public synchronized void onError(long permit, long elapsed) {
+		record(permit, true);
+	}
+
+	private void record(long permit, boolean failed) {
+		if(permit != generation) {
+			// allowed before the last change of state
+			return;
+		}
+
+		if(state == State.HALF_OPEN) {
+			if(failed) {
+				open();
+			} else if(++probed >= probes) {
+				close();
+			}
+			return;
+		}
+
+		if(calls == window.length) {
+			if(window[next]) {
+				failures--;
+			}
+		} else {
+			calls++;
+		}
+		window[next] = failed;
+		if(failed) {
+			failures++;
+		}
+		next = (next + 1) % window.length;
+
+		if(calls >= minCalls && failures >= failureRate * calls) {
+			open();
+		}
+	}
+
+	private void open() {
+		state = State.OPEN;
+		generation++;
+		openedAt = System.currentTimeMillis();
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		generation++;
+		calls = 0;
+		failures = 0;
+		next = 0;
+	}
+
+	public synchronized State getState() {
+		if(state == State.OPEN && System.currentTimeMillis() - openedAt >= openTime) {
+			return State.HALF_OPEN;
+		}
+		return state;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "CircuitBreaker [state=" + state + ", calls=" + calls + ", failures=" + failures + "]";
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.naskar.jmft.cics;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Guards the calls of another transport with a {@link CircuitBreaker} per CICS region,
+ * so a sick region fails fast instead of holding connections and threads.
+ *
+ * 		Ex.:
+ *
+ * 			CicsTransport transport = new CircuitBreakerTransport(new CtgTransport(), 
+ * 				() -> new CircuitBreaker(20, 10, 0.5, 5000, 30000, 3));
+ *
+ * 			Cics cics = new Cics(config, "PRG1", "PROG1", transport);
+ *
+ * Only the errors of the connection count as failures, see {@link #isConnectionFailure(Throwable)}:
+ * an ABEND or a security error is an answer of a healthy region.
+ */
+public class CircuitBreakerTransport implements CicsTransport {
+
+	private final CicsTransport transport;
+	private final Supplier<CircuitBreaker> factory;
+	private final Predicate<Throwable> failure;
+	private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<String, CircuitBreaker>();
+
+	/**
+	 * Breakers with the defaults of {@link CircuitBreaker}.
+	 */
+	public CircuitBreakerTransport(CicsTransport transport) {
+		this(transport, new Supplier<CircuitBreaker>() {
+			@Override
+			public CircuitBreaker get() {
+				return new CircuitBreaker();
+			}
+		});
+	}
+
+	public CircuitBreakerTransport(CicsTransport transport, Supplier<CircuitBreaker> factory) {
+		this(transport, factory, new Predicate<Throwable>() {
+			@Override
+			public boolean test(Throwable error) {
+				return isConnectionFailure(error);
+			}
+		});
+	}
+
+	/**
+	 * The failure tells which errors count against the region.
+	 */
+	public CircuitBreakerTransport(CicsTransport transport, Supplier<CircuitBreaker> factory, Predicate<Throwable> failure) {
+		this.transport = transport;
+		this.factory = factory;
+		this.failure = failure;
+	}
+
+	/**
+	 * A {@link CicsConnectionException}, an I/O error or a timeout, 
+	 * the error itself or one of its causes.
+	 */
+	public static boolean isConnectionFailure(Throwable error) {
+		for(Throwable e = error; e != null; e = e.getCause()) {
+			if(e instanceof CicsConnectionException || e instanceof IOException || e instanceof TimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void onError(CircuitBreaker breaker, long permit, Throwable error, long start) {
+		long elapsed = System.currentTimeMillis() - start;
+		if(failure.test(error)) {
+			breaker.onError(permit, elapsed);
+		} else {
+			breaker.onSuccess(permit, elapsed);
+		}
+	}
+
+	/**
+	 * The breaker of the region, created on the first call.
+	 */
+	public CircuitBreaker getBreaker(String region) {
+		CircuitBreaker breaker = breakers.get(region);
+		if(breaker == null) {
+			breaker = factory.get();
+			CircuitBreaker previous = breakers.putIfAbsent(region, breaker);
+			if(previous != null) {
+				breaker = previous;
+			}
+		}
+		return breaker;
+	}
+
+	private static long acquire(CircuitBreaker breaker, Configuration config) {
+		long permit = breaker.tryAcquire();
+		if(permit < 0) {
+			throw new JavaCicsException("Circuit open: [" + config.getRegion() + "]");
+		}
+		return permit;
+	}
+
+	@Override
+	public byte[] call(Configuration config, String transaction, String program, 
+			byte[] commarea, int dataLength, int replyLength) {
+		CircuitBreaker breaker = getBreaker(config.getRegion());
+		long permit = acquire(breaker, config);
+		long start = System.currentTimeMillis();
+		try {
+			byte[] reply = transport.call(config, transaction, program, commarea, dataLength, replyLength);
+			breaker.onSuccess(permit, System.currentTimeMillis() - start);
+			return reply;
+
+		} catch (RuntimeException e) {
+			onError(breaker, permit, e, start);
+			throw e;
+		}
+	}
+
+	@Override
+	public CompletableFuture<byte[]> callAsync(Configuration config, String transaction, String program, 
+			byte[] commarea, int dataLength, int replyLength) {
+		final CircuitBreaker breaker = getBreaker(config.getRegion());
+		final long permit;
+		try {
+			permit = acquire(breaker, config);
+		} catch (JavaCicsException e) {
+			CompletableFuture<byte[]> future = new CompletableFuture<byte[]>();
+			future.completeExceptionally(e);
+			return future;
+		}
+
+		final long start = System.currentTimeMillis();
+		CompletableFuture<byte[]> future = null;
+		try {
+			future = transport.callAsync(config, transaction, program, commarea, dataLength, replyLength);
+		} catch (RuntimeException e) {
+			onError(breaker, permit, e, start);
+			throw e;
+		}
+
+		return future.whenComplete(new BiConsumer<byte[], Throwable>() {
+			@Override
+			public void accept(byte[] reply, Throwable error) {
+				if(error == null) {
+					breaker.onSuccess(permit, System.currentTimeMillis() - start);
+				} else {
+					onError(breaker, permit, error, start);
+				}
+			}
+		});
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.naskar.jmft.cics;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * EBCDIC code page (CCSID) as 256-entry lookup tables, so text is converted 
+ * to and from the COMMAREA without going through {@link String#getBytes(String)}
+ * and {@link String#String(byte[], String)}.
+ *
+ * Characters without a mapping are written as the charset replacement byte (SUB),
+ * like the JDK charset does.
+ *
+ * 		Ex.:
+ *
+ * 			new CommArea(CodePage.CP037);
+ *
+ * 			@PICX(value = 10, codePage = "CP500")
+ * 			private String name;
+ *
+ */
+public final class CodePage {
+
+	private static final ConcurrentMap<String, CodePage> codePages = new ConcurrentHashMap<String, CodePage>();
+
+	public static final CodePage CP1047 = forName("CP1047");
+	public static final CodePage CP037 = forName("CP037");
+	public static final CodePage CP500 = forName("CP500");
+	public static final CodePage CP1140 = forName("CP1140");
+
+	private final Charset charset;
+
+	private final char[] chars;
+	private final byte[] latin = new byte[256];
+	private final char[] others;
+	private final byte[] othersBytes;
+	private final byte substitute;
+
+	private CodePage(Charset charset) {
+		this.charset = charset;
+
+		byte[] bytes = new byte[256];
+		for(int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+		}
+		this.chars = new String(bytes, charset).toCharArray();
+
+		for(int i = 0; i < latin.length; i++) {
+			latin[i] = String.valueOf((char) i).getBytes(charset)[0];
+		}
+
+		char[] others = new char[256];
+		int count = 0;
+		for(int i = 0; i < chars.length; i++) {
+			if(chars[i] >= 256 && chars[i] != '\uFFFD') {
+				others[count++] = chars[i];
+			}
+		}
+
+		this.others = Arrays.copyOf(others, count);
+		Arrays.sort(this.others);
+		this.othersBytes = new byte[count];
+		for(int i = 0; i < count; i++) {
+			othersBytes[i] = String.valueOf(this.others[i]).getBytes(charset)[0];
+		}
+
+		this.substitute = charset.newEncoder().replacement()[0];
+	}
+
+	/**
+	 * Code page of the JDK charset, like CP1047, IBM-037 or 1140.
+	 */
+	public static CodePage forName(String name) {
+		CodePage codePage = codePages.get(name);
+		if(codePage == null) {
+			Charset charset = Charset.forName(name);
+			codePage = codePages.get(charset.name());
+			if(codePage == null) {
+				codePage = new CodePage(charset);
+				CodePage previous = codePages.putIfAbsent(charset.name(), codePage);
+				if(previous != null) {
+					codePage = previous;
+				}
+			}
+			codePages.putIfAbsent(name, codePage);
+		}
+		return codePage;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public byte encode(char c) {
+		if(c < 256) {
+			return latin[c];
+		}
+		int pos = Arrays.binarySearch(others, c);
+		return pos >= 0 ? othersBytes[pos] : substitute;
+	}
+
+	/**
+	 * Writes the characters of value at dst[pos] and returns the position after the last byte written.
+	 */
+	public int encode(CharSequence value, byte[] dst, int pos) {
+		for(int i = 0; i < value.length(); i++) {
+			dst[pos++] = encode(value.charAt(i));
+		}
+		return pos;
+	}
+
+	/**
+	 * Writes the characters src[off] to src[off + len] at dst[pos] and returns the position after the last byte written.
+	 */
+	public int encode(char[] src, int off, int len, byte[] dst, int pos) {
+		for(int i = off; i < off + len; i++) {
+			dst[pos++] = encode(src[i]);
+		}
+		return pos;
+	}
+
+	public char decode(byte b) {
+		return chars[b & 0xFF];
+	}
+
+	/**
+	 * Reads size bytes at src[pos] into dst[off] and returns the position after the last char read.
+	 */
+	public int decode(byte[] src, int pos, int size, char[] dst, int off) {
+		for(int i = pos; i < pos + size; i++) {
+			dst[off++] = chars[src[i] & 0xFF];
+		}
+		return off;
+	}
+
+	public String decode(byte[] src, int pos, int size) {
+		char[] dst = new char[size];
+		decode(src, pos, size, dst, 0);
+		return new String(dst);
+	}
+
+	/**
+	 * Same as decode(src, pos, size).trim(), without decoding the leading and trailing blanks.
+	 */
+	public String decodeTrimmed(byte[] src, int pos, int size) {
+		int start = pos;
+		int end = pos + size;
+		while(start < end && chars[src[start] & 0xFF] <= ' ') {
+			start++;
+		}
+		while(end > start && chars[src[end - 1] & 0xFF] <= ' ') {
+			end--;
+		}
+		return decode(src, start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return "CodePage [" + charset.name() + "]";
+	}
+
+}
@@ -1,13 +1,18 @@
 package com.naskar.jmft.cics;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.lang.reflect.Field;
-import java.text.DecimalFormat;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Create a COMMAREA to call CICS programs using just POJO with PICTURE annotations:
@@ -40,6 +45,39 @@ import java.util.List;
  *			cics.runECIRequest(commArea);
  *			comm.from(commArea, data); // injects the values from comm area to POJO
  *
+ *		The text is EBCDIC CP1047 unless another code page is given:
+ *
+ *			CommArea comm = new CommArea(CodePage.CP037);
+ *
+ *		Double and BigDecimal values are written in the {@link NumericMode#COMPATIBLE} mode,
+ *		rounded half even and cut to the PICTURE like the previous versions. To round
+ *		half up and reject the values that don't fit:
+ *
+ *			CommArea comm = new CommArea(CodePage.CP1047, NumericMode.STRICT);
+ *
+ *		To reuse a buffer instead of allocating one per call:
+ *
+ *			byte[] buffer = new byte[32 * 1024];
+ *			int length = comm.encodeTo(data, buffer, 0);
+ *			...
+ *			comm.decodeFrom(buffer, 0, data);
+ *
+ *		Binary and floating point fields can be mapped to primitives:
+ *
+ *			@PICS9(value = 8, usage = Usage.COMP)
+ *			private int resp;
+ *
+ *		Tables are arrays or Lists of PICTUREs or of nested classes:
+ *
+ *			@PIC9(3)
+ *			private int count;
+ *
+ *			@OCCURS(value = 100, dependingOn = "count")
+ *			private List<Item> items;
+ *
+ *		A class can also be mapped by its own {@link CommAreaCodec}, registered with
+ *		{@link #register(Class, CommAreaCodec)} or named after the POJO (DataCommAreaCodec).
+ *
  *		refs.:
  *			PICTURE
  *
@@ -48,434 +86,491 @@ import java.util.List;
  */
 public class CommArea {
 	
+	private static final String CODEC_SUFFIX = "CommAreaCodec";
+	
+	private static final ConcurrentMap<Class<?>, CommAreaCodec<?>> registry = 
+			new ConcurrentHashMap<Class<?>, CommAreaCodec<?>>();
+	
+	private final ConcurrentMap<Class<?>, CommAreaCodec<Object>> codecs = 
+			new ConcurrentHashMap<Class<?>, CommAreaCodec<Object>>();
+	
+	private final CodePage codePage;
+	
+	private final NumericMode numericMode;
+	
+	public CommArea() {
+		this(CodePage.CP1047);
+	}
+	
+	public CommArea(CodePage codePage) {
+		this(codePage, NumericMode.COMPATIBLE);
+	}
+	
+	public CommArea(CodePage codePage, NumericMode numericMode) {
+		this.codePage = codePage;
+		this.numericMode = numericMode;
+	}
+	
+	public CodePage getCodePage() {
+		return codePage;
+	}
+	
+	public NumericMode getNumericMode() {
+		return numericMode;
+	}
+	
+	/**
+	 * Maps the class with the codec instead of its PICTURE annotations.
+	 * Register it before the first call of a CommArea with the class.
+	 */
+	public static <T> void register(Class<T> type, CommAreaCodec<? super T> codec) {
+		registry.put(type, codec);
+	}
+	
+	public static void unregister(Class<?> type) {
+		registry.remove(type);
+	}
+	
 	public byte[] to(Object o) {
 		try {
 
-			List<Object> sb = new ArrayList<Object>();
+			CommAreaCodec<Object> codec = codec(o.getClass());
+			byte[] commarea = new byte[codec.length(o)];
+			codec.encode(o, commarea, 0);
+			return commarea;
 
-			for (Field f : getFields(o)) {
-
-				appendPIC9(o, sb, f);
-				appendPIC9Comp3(o, sb, f);
-				appendPICX(o, sb, f);
-				appendPICS9(o, sb, f);
-				appendPICS9Comp3(o, sb, f);
-				appendREDEFINES(o, sb, f);
+		} catch (Exception e) {
+			throw new JavaCicsException(e);
+		}
+	}
+	
+	/**
+	 * Writes the COMMAREA of the POJO at dst[offset] and returns the number of bytes written.
+	 */
+	public int encodeTo(Object o, byte[] dst, int offset) {
+		try {
 
+			CommAreaCodec<Object> codec = codec(o.getClass());
+			int length = codec.length(o);
+			if(offset < 0 || dst.length - offset < length) {
+				throw new JavaCicsException("Buffer too small: [" + (dst.length - offset) + "] : [" + length + "]");
 			}
-
-			return convert(sb);
+			return codec.encode(o, dst, offset) - offset;
 
 		} catch (Exception e) {
 			throw new JavaCicsException(e);
 		}
 	}
 	
-	private <T> List<Field> getFields(T t) {
-        List<Field> fields = new ArrayList<Field>();
-        Class<?> clazz = t.getClass();
-        while (clazz != Object.class) {
-            fields.addAll(Arrays.asList(clazz.getDeclaredFields()));
-            clazz = clazz.getSuperclass();
-        }
-        return fields;
-    }
-	
-	private byte[] convert(List<Object> sb) throws IOException {
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
+	/**
+	 * Writes the COMMAREA of the POJO at the buffer position, advancing it,
+	 * and returns the number of bytes written.
+	 */
+	public int encodeTo(Object o, ByteBuffer dst) {
+		CommAreaCodec<Object> codec = codec(o.getClass());
+		int length = codec.length(o);
+		if(dst.remaining() < length) {
+			throw new BufferOverflowException();
+		}
 		
-		for(Object o : sb) {
-			if(o instanceof String) {
-				out.write(toBytes((String)o));
-			} else if(o instanceof byte[]) {
-				out.write((byte[])o);
-			} else {
-				throw new JavaCicsException("Unsupported type.");				
-			}
+		if(dst.hasArray()) {
+			encodeTo(o, dst.array(), dst.arrayOffset() + dst.position());
+			((Buffer) dst).position(dst.position() + length);
+			
+		} else {
+			byte[] buffer = scratch(length);
+			encodeTo(o, buffer, 0);
+			dst.put(buffer, 0, length);
+			
 		}
 		
-		return out.toByteArray();
+		return length;
 	}
-
-	private void appendPIC9(Object o, List<Object> sb, Field f) throws IllegalAccessException {
-		try {
-			PIC9 pic9 = f.getAnnotation(PIC9.class);
-			if (pic9 != null && pic9.usage() == Usage.DISPLAY) {
-				f.setAccessible(true);
-				Object value = f.get(o);
-				
-				if (value == null) {
-					value = "";
-				}
-				if (value instanceof Double) {
-					value = formatDouble((Double) value, pic9.value(), pic9.decimal());
-				}
 	
-				lpad(sb, pic9.value() + pic9.decimal(), String.valueOf(value), "0");
+	private static final ThreadLocal<byte[]> scratch = new ThreadLocal<byte[]>();
+	
+	private static byte[] scratch(int length) {
+		byte[] buffer = scratch.get();
+		if(buffer == null || buffer.length < length) {
+			buffer = new byte[Math.max(length, 4096)];
+			scratch.set(buffer);
+		}
+		return buffer;
+	}
+	
+	@SuppressWarnings("unchecked")
+	CommAreaCodec<Object> codec(Class<?> type) {
+		CommAreaCodec<Object> codec = codecs.get(type);
+		if(codec == null) {
+			codec = (CommAreaCodec<Object>) registry.get(type);
+			if(codec == null) {
+				codec = (CommAreaCodec<Object>) lookup(type);
 			}
-		} catch (Exception e) {
-			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
+			if(codec == null) {
+				codec = new LayoutCodec(CommAreaLayout.of(type));
+			}
+			codecs.putIfAbsent(type, codec);
 		}
+		return codec;
 	}
 	
-	private void appendPIC9Comp3(Object o, List<Object> sb, Field f) throws IllegalAccessException {
+	private static CommAreaCodec<?> lookup(Class<?> type) {
+		Class<?> clazz = null;
 		try {
-			PIC9 pic9 = f.getAnnotation(PIC9.class);
-			if (pic9 != null && pic9.usage() == Usage.COMP_3) {
-				
-				f.setAccessible(true);
-				Object value = f.get(o);
-				
-				if (value == null) {
-					value = "";
-				}
-				
-				String signal = "F";
-				
-				if (value instanceof Double) {
-					
-					if(((Double)value) < 0) {
-						signal = "D";
-					}
-					value = formatDouble((Double) value, pic9.value(), pic9.decimal());
-					
-				} else {
-					
-					if(value instanceof Integer) {
-						if(((Integer)value) < 0) {
-							signal = "D";
-						}
-						
-					} else if(value instanceof Long) {
-						if(((Long)value) < 0) {
-							signal = "D";
-						}
-					}
-					
-				}
-	
-				value = value + signal;
-				int count = pic9.value() + pic9.decimal() + 1;
-				if(count % 2 != 0) {
-					count++;
-				}
-				StringBuilder valueStr = lpad(count, String.valueOf(value), "0");
-				
-				hexpad(sb, valueStr.length() / 2, valueStr.toString());
-			}
+			clazz = Class.forName(type.getName() + CODEC_SUFFIX, true, type.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+		
+		if(!CommAreaCodec.class.isAssignableFrom(clazz)) {
+			throw new JavaCicsException("Codec must implement CommAreaCodec: " + clazz.getName());
+		}
+		
+		try {
+			return (CommAreaCodec<?>) clazz.newInstance();
 		} catch (Exception e) {
-			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
+			throw new JavaCicsException("ERROR on codec: " + clazz.getName(), e);
 		}
 	}
 	
-	private void appendPICS9(Object o, List<Object> sb, Field f) throws IllegalAccessException {
-		try {
-			PICS9 pics9 = f.getAnnotation(PICS9.class);
-			if (pics9 != null && pics9.usage() == Usage.DISPLAY) {
-				f.setAccessible(true);
-				Object value = f.get(o);
-				
-				if (value == null) {
-					value = "";
-				}
-				if (value instanceof Double) {
-					value = formatDouble((Double) value, pics9.value(), pics9.decimal());
-					value = unconvertSignal(String.valueOf(value));
-				}
+	/**
+	 * Maps the POJO by its {@link CommAreaLayout}.
+	 */
+	private class LayoutCodec implements CommAreaCodec<Object> {
+		
+		private final CommAreaLayout layout;
+		
+		LayoutCodec(CommAreaLayout layout) {
+			this.layout = layout;
+		}
+		
+		@Override
+		public int length(Object o) {
+			return layout.length(o);
+		}
+		
+		@Override
+		public int encode(Object o, byte[] dst, int offset) {
+			return append(layout, o, dst, offset);
+		}
+		
+		@Override
+		public int decode(byte[] src, int offset, Object o) {
+			return from(layout, src, offset, o);
+		}
+		
+	}
 	
-				lpad(sb, pics9.value() + pics9.decimal(), String.valueOf(value), "0");
+	private int append(CommAreaLayout layout, Object o, byte[] dst, int pos) {
+		for (CommAreaField f : layout.getFields()) {
+			switch (f.getKind()) {
+			case NUMERIC:
+				pos = appendNumeric(o, dst, pos, f);
+				break;
+			case ALPHANUMERIC:
+				pos = appendPICX(o, dst, pos, f);
+				break;
+			case GROUP:
+				pos = appendREDEFINES(o, dst, pos, f);
+				break;
+			case OCCURS:
+				pos = appendOCCURS(o, dst, pos, f);
+				break;
 			}
-		} catch (Exception e) {
-			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
 		}
+		return pos;
 	}
 	
-	private void appendPICS9Comp3(Object o, List<Object> sb, Field f) throws IllegalAccessException {
+	/**
+	 * Primitive fields are read without boxing.
+	 */
+	private int appendNumeric(Object o, byte[] dst, int pos, CommAreaField f) {
 		try {
-			PICS9 pics9 = f.getAnnotation(PICS9.class);
-			if (pics9 != null && pics9.usage() == Usage.COMP_3) {
-				
-				f.setAccessible(true);
-				Object value = f.get(o);
-				
-				if (value == null) {
-					value = "";
-				}
+			
+			if (f.isPrimitive() && !f.isPrimitiveFloat()) {
+				return writeNumeric(f.getLong(o), dst, pos, f);
 				
-				String signal = "F";
+			} else if (f.isPrimitive()) {
+				return writeNumeric(f.getDouble(o), dst, pos, f);
 				
-				if (value instanceof Double) {
-					
-					if(((Double)value) < 0) {
-						signal = "D";
-					} else {
-						signal = "C";
-					}
-					value = formatDouble((Double) value, pics9.value(), pics9.decimal());
-					
-				} else {
-					
-					if(value instanceof Integer) {
-						if(((Integer)value) < 0) {
-							signal = "D";
-						} else {
-							signal = "C";
-						}
-						
-					} else if(value instanceof Long) {
-						if(((Long)value) < 0) {
-							signal = "D";
-						} else {
-							signal = "C";
-						}
-					}
-					
-				}
-	
-				value = value + signal;
-				int count = pics9.value() + pics9.decimal() + 1;
-				if(count % 2 != 0) {
-					count++;
-				}
-				StringBuilder valueStr = lpad(count, String.valueOf(value), "0");
+			} else {
+				return writeNumeric(f.get(o), dst, pos, f);
 				
-				hexpad(sb, valueStr.length() / 2, valueStr.toString());
 			}
+			
 		} catch (Exception e) {
 			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
 		}
 	}
-
-	private void appendPICX(Object o, List<Object> sb, Field f) throws IllegalAccessException {
-		try {
-			PICX picx = f.getAnnotation(PICX.class);
-			if (picx != null) {
-				f.setAccessible(true);
-				Object value = f.get(o);
-				if (value == null) {
-					value = "";
-				}
 	
-				if(picx.encoding() == Encoding.BASE64) {
-					b64pad(sb, picx.value(), (String)value);
-					
-				} else if(picx.encoding() == Encoding.HEX) {
-					hexpad(sb, picx.value(), (String)value);
-					
-				} else {
-					rpad(sb, picx.value(), String.valueOf(value), " ");
-					
-				}
-			}
-		} catch (Exception e) {
-			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
+	private int writeNumeric(Object value, byte[] dst, int pos, CommAreaField f) {
+		if (f.getUsage() == Usage.COMP_3) {
+			writeComp3(value, dst, pos, f);
+		} else if (f.getUsage().isBinary()) {
+			writeBinary(value, dst, pos, f);
+		} else if (f.getUsage().isFloat()) {
+			writeFloat(value, dst, pos, f);
+		} else {
+			writePIC9(value, dst, pos, f);
 		}
+		return pos + f.getLength();
 	}
 	
-	private void b64pad(List<Object> sb, int size, String value) {
-		try {
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private int writeNumeric(long value, byte[] dst, int pos, CommAreaField f) {
+		if (f.getUsage() == Usage.COMP_3) {
+			PackedDecimal.encode(value, f.isSigned(), dst, pos, f.getLength());
+		} else if (f.getUsage().isBinary()) {
+			writeBinary(value, dst, pos, f);
+		} else if (f.getUsage().isFloat()) {
+			HexFloat.encode(value, dst, pos, f.getLength());
+		} else {
+			writePIC9(value, dst, pos, f);
+		}
+		return pos + f.getLength();
+	}
+	
+	private int writeNumeric(double value, byte[] dst, int pos, CommAreaField f) {
+		if (f.getUsage().isFloat()) {
+			HexFloat.encode(value, dst, pos, f.getLength());
+			return pos + f.getLength();
+		}
+		return writeNumeric(Double.valueOf(value), dst, pos, f);
+	}
+
+	/**
+	 * PIC9 and PICS9 DISPLAY: one EBCDIC digit per byte, 
+	 * the signal of PICS9 in the zone of the last digit.
+	 */
+	private void writePIC9(Object value, byte[] dst, int pos, CommAreaField f) {
+		if (value == null) {
+			lpad(dst, pos, f.getLength(), "", ZERO);
 			
-			int s = 0;
-			if(value != null && value.length() > 0) {
-				byte[] b = Base64.getDecoder().decode(value);
-				s = b.length;
-				out.write(b);
-			}
+		} else if (value instanceof BigDecimal) {
+			ZonedDecimal.encode(unscaled((BigDecimal) value, f), f.isSigned(), dst, pos, f.getLength());
 			
-			byte[] b = new byte[size-s];
-			Arrays.fill(b, (byte)0);
-			out.write(b);
+		} else if (value instanceof Double && isLong(f)) {
+			ZonedDecimal.encode(unscaled((Double) value, f), f.isSigned(), dst, pos, f.getLength());
+			
+		} else if (value instanceof Double) {
+			ZonedDecimal.encode(unscaled(decimal((Double) value), f), f.isSigned(), dst, pos, f.getLength());
+			
+		} else if (isIntegral(value)) {
+			writePIC9(((Number) value).longValue(), dst, pos, f);
+			
+		} else {
+			lpad(dst, pos, f.getLength(), String.valueOf(value), ZERO);
 			
-			sb.add(out.toByteArray());
-		} catch (Exception e) {
-			throw new JavaCicsException(e);
 		}
 	}
 	
-	private void hexpad(List<Object> sb, int size, String value) {
-		try {
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private void writePIC9(long value, byte[] dst, int pos, CommAreaField f) {
+		ZonedDecimal.encode(value, f.isSigned(), dst, pos, f.getLength());
+	}
+	
+	/**
+	 * PIC9 and PICS9 COMP-3: two digits per byte, the signal in the last nibble.
+	 */
+	private void writeComp3(Object value, byte[] dst, int pos, CommAreaField f) {
+		if (value == null) {
+			PackedDecimal.encode(0L, false, dst, pos, f.getLength());
 			
-			int s = 0;
-			if(value != null && value.length() > 0) {
-				for(int i = 0; i < value.length(); i += 2) {
-					String v = value.substring(i, i + 1) + value.substring(i + 1, i + 2);
-					out.write(new Integer(Integer.parseInt(v, 16)).byteValue());
-				}
-				s = value.length() / 2;
-			}
+		} else if (value instanceof BigDecimal) {
+			PackedDecimal.encode(unscaled((BigDecimal) value, f), f.isSigned(), dst, pos, f.getLength());
 			
-			byte[] b = new byte[size-s];
-			Arrays.fill(b, (byte)0);
-			out.write(b);
+		} else if (value instanceof Double && isLong(f)) {
+			PackedDecimal.encode(unscaled((Double) value, f), f.isSigned(), dst, pos, f.getLength());
+			
+		} else if (value instanceof Double) {
+			PackedDecimal.encode(unscaled(decimal((Double) value), f), f.isSigned(), dst, pos, f.getLength());
+			
+		} else if (isIntegral(value)) {
+			PackedDecimal.encode(((Number) value).longValue(), f.isSigned(), dst, pos, f.getLength());
+			
+		} else {
+			BigInteger v = new BigInteger(String.valueOf(value).trim());
+			PackedDecimal.encode(v, f.isSigned(), dst, pos, f.getLength());
 			
-			sb.add(out.toByteArray());
-		} catch (Exception e) {
-			throw new JavaCicsException(e);
 		}
 	}
 	
-	private String hex(byte[] data) {
-		StringBuilder sb = new StringBuilder();
-		for(int i = 0; i < data.length; i++) {
-			sb.append(String.format("%02X", data[i]));
+	/**
+	 * PIC9 and PICS9 COMP, COMP-4 and COMP-5: big-endian binary of the unscaled value.
+	 */
+	private void writeBinary(Object value, byte[] dst, int pos, CommAreaField f) {
+		long v = 0;
+		if (isIntegral(value)) {
+			v = ((Number) value).longValue();
+		} else if (value instanceof BigDecimal) {
+			v = ((BigDecimal) value).setScale(f.getDecimal(), numericMode.getRounding()).unscaledValue().longValueExact();
+		} else if (value instanceof Double || value instanceof Float) {
+			v = FixedPoint.unscaled(((Number) value).doubleValue(), f.getDecimal(), 
+					numericMode.getRounding(), numericMode.isBinary());
+		} else if (value != null) {
+			v = Long.parseLong(String.valueOf(value).trim());
 		}
-		return sb.toString();
+		writeBinary(v, dst, pos, f);
 	}
-
-	private void appendREDEFINES(Object o, List<Object> sb, Field f) throws IllegalAccessException {
-		try {
-			REDEFINES redefines = f.getAnnotation(REDEFINES.class);
-			if (redefines != null) {
-				f.setAccessible(true);
-				Object value = f.get(o);
-				
-				if (value == null) {
-					throw new JavaCicsException("REDEFEINES required.");
-				} 
-				
-				sb.add(to(value));
-			}
-		} catch (Exception e) {
-			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
+	
+	/**
+	 * COMP and COMP-4 are limited to the PICTURE digits, COMP-5 to the size of the field.
+	 */
+	private void writeBinary(long value, byte[] dst, int pos, CommAreaField f) {
+		long v = f.isSigned() ? value : Math.abs(value);
+		
+		int size = f.getLength();
+		boolean fits = f.getUsage() == Usage.COMP_5 
+				? Binary.fitsSize(v, size, f.isSigned()) 
+				: Binary.fitsDigits(v, f.getDigits() + f.getDecimal());
+		if (!fits) {
+			throw new JavaCicsException("Value invalid size: [" + v + "] : [" + size + "]");
 		}
+		
+		Binary.encode(v, dst, pos, size);
 	}
-
-	private void lpad(List<Object> sb, int size, String value, String pad) {
-		StringBuilder s = lpad(size, value, pad);
-		sb.add(s.toString());
-		if(s.length() > size) {
-			throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+	
+	/**
+	 * COMP-1 and COMP-2: IBM hexadecimal floating point.
+	 */
+	private void writeFloat(Object value, byte[] dst, int pos, CommAreaField f) {
+		double v = 0;
+		if (value instanceof Number) {
+			v = ((Number) value).doubleValue();
+		} else if (value != null) {
+			v = Double.parseDouble(String.valueOf(value).trim());
 		}
+		HexFloat.encode(v, dst, pos, f.getLength());
 	}
-
-	private StringBuilder lpad(int size, String value, String pad) {
-		StringBuilder s = new StringBuilder();
-		for (int i = value.length(); i < size; i++) {
-			s.append(pad);
-		}
-		s.append(value);
-		return s;
+	
+	private static boolean isLong(CommAreaField f) {
+		return f.getDigits() + f.getDecimal() <= PackedDecimal.LONG_DIGITS;
 	}
 	
-	private void rpad(List<Object> sb, int size, String value, String pad) {
-		StringBuilder s = new StringBuilder();
-		s.append(value);
-		for (int i = value.length(); i < size; i++) {
-			s.append(pad);
+	/**
+	 * Unscaled value of the double with the decimal of the field, 
+	 * rounded and fitted to the digits by the {@link NumericMode}.
+	 */
+	private long unscaled(double value, CommAreaField f) {
+		int digits = f.getDigits() + f.getDecimal();
+		long v = FixedPoint.unscaled(value, f.getDecimal(), numericMode.getRounding(), numericMode.isBinary());
+		
+		if (!FixedPoint.fits(v, digits)) {
+			if (numericMode == NumericMode.STRICT) {
+				throw new JavaCicsException("Value invalid size: [" + value + "] : [" + digits + "]");
+			}
+			v = FixedPoint.truncate(v, digits);
 		}
-		sb.add(s.toString());
+		
+		return v;
 	}
 	
-	private String formatDouble(Double value, int integ, int dec) {
-		DecimalFormat df = new DecimalFormat();
-		df.setMinimumFractionDigits(dec);
-		df.setMaximumFractionDigits(dec);
-		df.setMinimumIntegerDigits(integ);
-		df.setMaximumIntegerDigits(integ);
-		df.setDecimalSeparatorAlwaysShown(false);
-		df.setGroupingUsed(false);
-		return df.format(value).replaceAll(",", "").replaceAll("\\.", "");
+	private BigDecimal decimal(double value) {
+		return numericMode.isBinary() ? new BigDecimal(value) : BigDecimal.valueOf(value);
 	}
-
-	private byte[] toBytes(String input) {
-		try {
-
-			byte[] result = new byte[input.length()];
-			System.arraycopy(input.getBytes("CP1047"), 0, result, 0, result.length);
-			return result;
-
-		} catch (Exception e) {
-			throw new JavaCicsException(e);
+	
+	private BigInteger unscaled(BigDecimal value, CommAreaField f) {
+		int digits = f.getDigits() + f.getDecimal();
+		BigInteger v = value.setScale(f.getDecimal(), numericMode.getRounding()).unscaledValue();
+		
+		BigInteger max = BigInteger.TEN.pow(digits);
+		if (v.abs().compareTo(max) >= 0) {
+			if (numericMode == NumericMode.STRICT) {
+				throw new JavaCicsException("Value invalid size: [" + value + "] : [" + digits + "]");
+			}
+			v = v.remainder(max);
 		}
+		
+		return v;
 	}
-
-	public String fromBytes(byte[] commarea) {
+	
+	private int appendPICX(Object o, byte[] dst, int pos, CommAreaField f) {
 		try {
-			return new String(commarea, "CP1047");
+			return writePICX(f.get(o), dst, pos, f);
 		} catch (Exception e) {
-			throw new JavaCicsException(e);
+			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
 		}
 	}
+	
+	private int writePICX(Object value, byte[] dst, int pos, CommAreaField f) {
+		if (value == null) {
+			value = "";
+		}
 
-	public int from(byte[] output, Object o) {
-		try {
-
-			int pos = 0;
-			for (Field f : getFields(o)) {
-
-				pos = configurePIC9(output, pos, o, f);
-				pos = configurePIC9Comp3(output, pos, o, f);
-				pos = configurePICS9(output, pos, o, f);
-				pos = configurePICS9Comp3(output, pos, o, f);
-				pos = configurePICX(output, pos, o, f);
-				pos = configureREDEFINES(output, pos, o, f);
-				
-			}
+		if(f.getEncoding() == Encoding.BASE64) {
+			b64pad(dst, pos, f.getLength(), (String)value);
+			
+		} else if(f.getEncoding() == Encoding.HEX) {
+			hexpad(dst, pos, f.getLength(), (String)value);
+			
+		} else {
+			rpad(dst, pos, f.getLength(), String.valueOf(value), codePage(f));
 			
-			return pos;
-
-		} catch (Exception e) {
-			throw new JavaCicsException(e);
 		}
+		
+		return pos + f.getLength();
 	}
 	
-	private int configurePIC9(byte[] output, int pos, Object o, Field f) {
+	private int appendREDEFINES(Object o, byte[] dst, int pos, CommAreaField f) {
 		try {
-			PIC9 pic9 = f.getAnnotation(PIC9.class);
-			if (pic9 != null && pic9.usage() == Usage.DISPLAY) {
-				
-				f.setAccessible(true);
-				
-				String value = fromBytes(Arrays.copyOfRange(output, pos, pos + pic9.value() + pic9.decimal()));
-				value = value.trim();
-				if(value.isEmpty()) {
-					value = null;
-					f.set(o, value);
-				} else {
-					configureNumeric(o, f, pic9.decimal(), value);
-				}
-				
-				pos += pic9.value()+pic9.decimal();
-				
-			}
-
-			return pos;
+			Object value = f.get(o);
+			
+			if (value == null) {
+				throw new JavaCicsException("REDEFEINES required.");
+			} 
+			
+			return append(f.getLayout(), value, dst, pos);
 		} catch (Exception e) {
 			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
 		}
 	}
 	
-	private int configurePIC9Comp3(byte[] output, int pos, Object o, Field f) {
+	/**
+	 * OCCURS: the elements one after the other, each one with the element length.
+	 * Missing elements are written empty. With DEPENDING ON only the counted elements
+	 * are written and the next fields follow them.
+	 */
+	private int appendOCCURS(Object o, byte[] dst, int pos, CommAreaField f) {
 		try {
-			PIC9 pic9 = f.getAnnotation(PIC9.class);
-			if (pic9 != null && pic9.usage() == Usage.COMP_3) {
+			Object table = f.get(o);
+			int count = f.count(o);
+			int size = table == null ? 0 : table instanceof List ? ((List<?>) table).size() : Array.getLength(table);
+			CommAreaField e = f.getElement();
+			
+			if (table instanceof int[]) {
+				int[] a = (int[]) table;
+				for (int i = 0; i < count; i++) {
+					pos = writeNumeric(i < size ? a[i] : 0L, dst, pos, e);
+				}
+				
+			} else if (table instanceof long[]) {
+				long[] a = (long[]) table;
+				for (int i = 0; i < count; i++) {
+					pos = writeNumeric(i < size ? a[i] : 0L, dst, pos, e);
+				}
 				
-				int count = Math.round((float)(pic9.value() + pic9.decimal() + 1) / 2);
-				byte[] buf = Arrays.copyOfRange(output, pos, pos + count);
+			} else if (table instanceof short[]) {
+				short[] a = (short[]) table;
+				for (int i = 0; i < count; i++) {
+					pos = writeNumeric(i < size ? a[i] : 0L, dst, pos, e);
+				}
 				
-				String value = hex(buf);
+			} else if (table instanceof double[]) {
+				double[] a = (double[]) table;
+				for (int i = 0; i < count; i++) {
+					pos = writeNumeric(i < size ? a[i] : 0.0, dst, pos, e);
+				}
 				
-				f.setAccessible(true);
+			} else {
+				List<?> list = table instanceof List ? (List<?>) table : null;
+				Object[] array = table instanceof Object[] ? (Object[]) table : null;
 				
-				value = value.trim();
-				if(value.isEmpty()) {
-					value = null;
-					f.set(o, value);
-				} else {
-					
-					String signal = value.substring(value.length()-1, value.length());
-					
-					value = value.substring(0, value.length()-1);
-					if("D".equals(signal)) {
-						value = "-" + value;
+				for (int i = 0; i < count; i++) {
+					Object value = null;
+					if (i < size) {
+						value = list != null ? list.get(i) : array != null ? array[i] : Array.get(table, i);
 					}
-					
-					configureNumeric(o, f, pic9.decimal(), value);
+					pos = writeElement(value, dst, pos, e);
 				}
 				
-				pos += count;
 			}
 			
 			return pos;
@@ -484,87 +579,401 @@ public class CommArea {
 		}
 	}
 	
-	private int configurePICS9(byte[] output, int pos, Object o, Field f) {
+	private int writeElement(Object value, byte[] dst, int pos, CommAreaField e) throws Exception {
+		switch (e.getKind()) {
+		case NUMERIC:
+			return writeNumeric(value, dst, pos, e);
+		case ALPHANUMERIC:
+			return writePICX(value, dst, pos, e);
+		default:
+			if (value == null) {
+				value = e.getType().newInstance();
+			}
+			return append(e.getLayout(), value, dst, pos);
+		}
+	}
+	
+	private static boolean isIntegral(Object value) {
+		return value instanceof Integer || value instanceof Long 
+				|| value instanceof Short || value instanceof Byte;
+	}
+	
+	/**
+	 * EBCDIC values written directly to the COMMAREA.
+	 */
+	private static final byte ZERO = (byte) 0xF0;
+	
+	private void b64pad(byte[] dst, int pos, int size, String value) {
+		int s = 0;
+		if(value != null && value.length() > 0) {
+			byte[] b = Base64.getDecoder().decode(value);
+			if(b.length > size) {
+				throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+			}
+			System.arraycopy(b, 0, dst, pos, b.length);
+			s = b.length;
+		}
+		
+		Arrays.fill(dst, pos + s, pos + size, (byte)0);
+	}
+	
+	private void hexpad(byte[] dst, int pos, int size, String value) {
+		int s = 0;
+		if(value != null && value.length() > 0) {
+			if(value.length() % 2 != 0 || value.length() / 2 > size) {
+				throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+			}
+			for(int i = 0; i < value.length(); i += 2) {
+				dst[pos + s++] = (byte) ((nibble(value.charAt(i)) << 4) | nibble(value.charAt(i + 1)));
+			}
+		}
+		
+		Arrays.fill(dst, pos + s, pos + size, (byte)0);
+	}
+	
+	private static int nibble(char c) {
+		int n = Character.digit(c, 16);
+		if(n == -1) {
+			throw new JavaCicsException("Invalid hex digit: [" + c + "]");
+		}
+		return n;
+	}
+	
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+	
+	private String hex(byte[] data, int pos, int size) {
+		char[] chars = new char[size * 2];
+		for(int i = 0; i < size; i++) {
+			int b = data[pos + i] & 0xFF;
+			chars[i * 2] = HEX[b >>> 4];
+			chars[i * 2 + 1] = HEX[b & 0x0F];
+		}
+		return new String(chars);
+	}
+
+	private void lpad(byte[] dst, int pos, int size, String value, byte pad) {
+		if(value.length() > size) {
+			throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+		}
+		int start = pos + size - value.length();
+		Arrays.fill(dst, pos, start, pad);
+		codePage.encode(value, dst, start);
+	}
+	
+	private void rpad(byte[] dst, int pos, int size, String value, CodePage codePage) {
+		if(value.length() > size) {
+			throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+		}
+		int end = codePage.encode(value, dst, pos);
+		Arrays.fill(dst, end, pos + size, codePage.encode(' '));
+	}
+	
+	private CodePage codePage(CommAreaField f) {
+		return f.getCodePage() != null ? f.getCodePage() : codePage;
+	}
+	
+	public String fromBytes(byte[] commarea) {
+		return codePage.decode(commarea, 0, commarea.length);
+	}
+
+	public int from(byte[] output, Object o) {
+		return decodeFrom(output, 0, o);
+	}
+	
+	/**
+	 * Reads the POJO from the COMMAREA at src[offset], in place, 
+	 * and returns the number of bytes read.
+	 */
+	public int decodeFrom(byte[] src, int offset, Object o) {
 		try {
-			PICS9 pics9 = f.getAnnotation(PICS9.class);
-			if (pics9 != null && pics9.usage() == Usage.DISPLAY) {
-				
-				f.setAccessible(true);
-				
-				String value = fromBytes(Arrays.copyOfRange(output, pos, pos + pics9.value() + pics9.decimal()));
-				value = value.trim();
-				if(value.isEmpty()) {
-					value = null;
-					f.set(o, value);
-				} else {
-					value = convertSignal(value);
-					configureNumeric(o, f, pics9.decimal(), value);
-				}
-				
-				pos += pics9.value() + pics9.decimal();
-				
+
+			CommAreaCodec<Object> codec = codec(o.getClass());
+			int length = maxLength(codec, o);
+			if(src.length - offset < length) {
+				// short COMMAREA: the missing bytes are read as low-values
+				src = Arrays.copyOfRange(src, offset, offset + length);
+				offset = 0;
 			}
+			return codec.decode(src, offset, o) - offset;
 
-			return pos;
 		} catch (Exception e) {
-			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
+			throw new JavaCicsException(e);
+		}
+	}
+	
+	/**
+	 * Reads the POJO from the COMMAREA at the buffer position, advancing it,
+	 * and returns the number of bytes read.
+	 */
+	public int decodeFrom(ByteBuffer src, Object o) {
+		int length = 0;
+		
+		if(src.hasArray()) {
+			length = decodeFrom(src.array(), src.arrayOffset() + src.position(), o);
+			
+		} else {
+			int size = maxLength(codec(o.getClass()), o);
+			int available = Math.min(src.remaining(), size);
+			byte[] buffer = scratch(size);
+			src.duplicate().get(buffer, 0, available);
+			Arrays.fill(buffer, available, size, (byte)0);
+			length = decodeFrom(buffer, 0, o);
+			
+		}
+		
+		((Buffer) src).position(src.position() + Math.min(length, src.remaining()));
+		return length;
+	}
+	
+	/**
+	 * The length to decode: the maximum of a variable layout, since the number
+	 * of elements of an OCCURS DEPENDING ON comes from the COMMAREA.
+	 */
+	static int maxLength(CommAreaCodec<Object> codec, Object o) {
+		if(codec instanceof LayoutCodec) {
+			return ((LayoutCodec) codec).layout.getLength();
+		}
+		return codec.length(o);
+	}
+	
+	private int from(CommAreaLayout layout, byte[] output, int pos, Object o) {
+		for (CommAreaField f : layout.getFields()) {
+			switch (f.getKind()) {
+			case NUMERIC:
+				pos = configureNumeric(output, pos, o, f);
+				break;
+			case ALPHANUMERIC:
+				pos = configurePICX(output, pos, o, f);
+				break;
+			case GROUP:
+				pos = configureREDEFINES(output, pos, o, f);
+				break;
+			case OCCURS:
+				pos = configureOCCURS(output, pos, o, f);
+				break;
+			}
 		}
+		return pos;
 	}
 	
-	private int configurePICS9Comp3(byte[] output, int pos, Object o, Field f) {
+	/**
+	 * Primitive fields are written without boxing.
+	 */
+	private int configureNumeric(byte[] output, int pos, Object o, CommAreaField f) {
 		try {
-			PICS9 pics9 = f.getAnnotation(PICS9.class);
-			if (pics9 != null && pics9.usage() == Usage.COMP_3) {
-				
-				int count = Math.round((float)(pics9.value() + pics9.decimal() + 1) / 2);
-				byte[] buf = Arrays.copyOfRange(output, pos, pos + count);
-				
-				String value = hex(buf);
+			
+			if (f.isPrimitive() && !f.isPrimitiveFloat()) {
+				f.setLong(o, readLong(output, pos, f));
 				
-				f.setAccessible(true);
+			} else if (f.isPrimitive()) {
+				f.setDouble(o, readDouble(output, pos, f));
 				
-				value = value.trim();
-				if(value.isEmpty()) {
-					value = null;
-					f.set(o, value);
-				} else {
-					
-					String signal = value.substring(value.length()-1, value.length());
-					
-					value = value.substring(0, value.length()-1);
-					if("D".equals(signal)) {
-						value = "-" + value;
-					}
-					
-					configureNumeric(o, f, pics9.decimal(), value);
-				}
+			} else {
+				f.set(o, readNumeric(output, pos, f));
 				
-				pos += count;
 			}
 			
-			return pos;
+			return pos + f.getLength();
 		} catch (Exception e) {
 			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
 		}
 	}
-
-	private void configureNumeric(Object o, Field f, int decimal, String value) throws IllegalAccessException {
+	
+	/**
+	 * Value of the numeric field as its type: Integer, Long, Short, Double or the String.
+	 */
+	private Object readNumeric(byte[] output, int pos, CommAreaField f) {
+		if (f.getUsage() == Usage.COMP_3) {
+			return readComp3(output, pos, f);
+		} else if (f.getUsage().isBinary()) {
+			return readBinary(output, pos, f);
+		} else if (f.getUsage().isFloat()) {
+			return readFloat(output, pos, f);
+		} else {
+			return readDisplay(output, pos, f);
+		}
+	}
+	
+	/**
+	 * Unscaled value of the numeric field.
+	 */
+	private long readLong(byte[] output, int pos, CommAreaField f) {
+		if (f.getUsage() == Usage.COMP_3) {
+			return PackedDecimal.decode(output, pos, f.getLength());
+			
+		} else if (f.getUsage().isBinary()) {
+			return Binary.decode(output, pos, f.getLength(), f.isSigned());
+			
+		} else if (f.getUsage().isFloat()) {
+			return (long) HexFloat.decode(output, pos, f.getLength());
+			
+		} else {
+			int start = trimStart(output, pos, f.getLength());
+			int end = trimEnd(output, start, pos + f.getLength());
+			if (start == end) {
+				return 0;
+			}
+			
+			long value = ZonedDecimal.decode(output, start, end - start);
+			if (value != ZonedDecimal.INVALID) {
+				return value;
+			}
+			return displayString(output, pos, f).longValue();
+			
+		}
+	}
+	
+	private double readDouble(byte[] output, int pos, CommAreaField f) {
+		if (f.getUsage().isFloat()) {
+			return HexFloat.decode(output, pos, f.getLength());
+		}
+		if (f.getUsage() == Usage.COMP_3 && PackedDecimal.digits(f.getLength()) > PackedDecimal.LONG_DIGITS) {
+			return new BigDecimal(PackedDecimal.decodeBig(output, pos, f.getLength()), f.getDecimal()).doubleValue();
+		}
+		return toDouble(readLong(output, pos, f), f.getDecimal());
+	}
+	
+	/**
+	 * PIC9 and PICS9 DISPLAY: the zoned digits are read into the unscaled long,
+	 * other contents, like signals converted from ASCII, are parsed from the text.
+	 * String fields receive the text, with the signal for PICS9.
+	 */
+	private Object readDisplay(byte[] output, int pos, CommAreaField f) {
+		int start = trimStart(output, pos, f.getLength());
+		int end = trimEnd(output, start, pos + f.getLength());
+		if (start == end) {
+			return null;
+		}
+		
+		if (!isNumeric(f.getType())) {
+			String value = codePage.decode(output, start, end - start);
+			return f.isSigned() ? convertSignal(value) : value;
+		}
+		
+		long value = ZonedDecimal.decode(output, start, end - start);
+		if (value != ZonedDecimal.INVALID) {
+			return toNumeric(value, f);
+		}
+		return toNumeric(displayString(output, pos, f), f);
+	}
+	
+	private BigInteger displayString(byte[] output, int pos, CommAreaField f) {
+		String value = codePage.decodeTrimmed(output, pos, f.getLength());
+		return new BigInteger(f.isSigned() ? convertSignal(value) : value);
+	}
+	
+	private int trimStart(byte[] output, int pos, int size) {
+		int end = pos + size;
+		while (pos < end && codePage.decode(output[pos]) <= ' ') {
+			pos++;
+		}
+		return pos;
+	}
+	
+	private int trimEnd(byte[] output, int start, int end) {
+		while (end > start && codePage.decode(output[end - 1]) <= ' ') {
+			end--;
+		}
+		return end;
+	}
+	
+	private Object readComp3(byte[] output, int pos, CommAreaField f) {
+		int size = f.getLength();
+		
+		if (!isNumeric(f.getType())) {
+			String value = hex(output, pos, size);
+			value = value.substring(0, value.length()-1);
+			if(PackedDecimal.isNegative(output, pos, size)) {
+				value = "-" + value;
+			}
+			return value;
+			
+		} else if (PackedDecimal.digits(size) <= PackedDecimal.LONG_DIGITS) {
+			return toNumeric(PackedDecimal.decode(output, pos, size), f);
+			
+		} else {
+			return toNumeric(PackedDecimal.decodeBig(output, pos, size), f);
+			
+		}
+	}
+	
+	private Object readBinary(byte[] output, int pos, CommAreaField f) {
+		long value = Binary.decode(output, pos, f.getLength(), f.isSigned());
+		
+		if (isNumeric(f.getType())) {
+			return toNumeric(value, f);
+		} else {
+			return BigDecimal.valueOf(value, f.getDecimal()).toPlainString();
+		}
+	}
+	
+	private Object readFloat(byte[] output, int pos, CommAreaField f) {
+		double value = HexFloat.decode(output, pos, f.getLength());
+		
+		if (f.getType().equals(Float.class)) {
+			return (float) value;
+		} else if (f.getType().equals(Double.class)) {
+			return value;
+		} else if (f.getType().equals(BigDecimal.class)) {
+			return BigDecimal.valueOf(value);
+		} else {
+			return String.valueOf(value);
+		}
+	}
+	
+	private static boolean isNumeric(Class<?> type) {
+		return type.isPrimitive() || type.equals(Integer.class) || type.equals(Long.class) 
+				|| type.equals(Short.class) || type.equals(Double.class) || type.equals(BigDecimal.class);
+	}
+	
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+	};
+	
+	/**
+	 * The unscaled value: integers as is, Double divided by 10^decimal
+	 * and BigDecimal with the decimal as scale.
+	 */
+	private static Object toNumeric(long value, CommAreaField f) {
 		if (f.getType().equals(Integer.class)) {
-			f.set(o, Integer.parseInt(value));
+			return Math.toIntExact(value);
+			
+		} else if (f.getType().equals(Short.class)) {
+			if (value != (short) value) {
+				throw new JavaCicsException("Value out of range: [" + value + "] : [" + Short.class + "]");
+			}
+			return (short) value;
 			
 		} else if (f.getType().equals(Double.class)) {
-			String v = value.substring(0, value.length()-decimal);
-			String d = value.substring(value.length()-decimal, value.length());
-			f.set(o, Double.parseDouble(v + "." + d));
+			return toDouble(value, f.getDecimal());
 			
-		} else if (f.getType().equals(Long.class)) {
-			f.set(o, Long.parseLong(value));
+		} else if (f.getType().equals(BigDecimal.class)) {
+			return BigDecimal.valueOf(value, f.getDecimal());
 			
 		} else {
-			f.set(o, value);
+			return value;
+			
+		}
+	}
+	
+	private static double toDouble(long value, int decimal) {
+		if (decimal < POWERS_OF_TEN.length && Math.abs(value) < (1L << 53)) {
+			return value / POWERS_OF_TEN[decimal];
 		}
+		return BigDecimal.valueOf(value, decimal).doubleValue();
 	}
 	
+	private static Object toNumeric(BigInteger value, CommAreaField f) {
+		if (f.getType().equals(Double.class)) {
+			return new BigDecimal(value, f.getDecimal()).doubleValue();
+		} else if (f.getType().equals(BigDecimal.class)) {
+			return new BigDecimal(value, f.getDecimal());
+		} else {
+			return toNumeric(value.longValueExact(), f);
+		}
+	}
+
 	/**
 	 * Table converter to signal values: PICS9.
 	 */
@@ -576,6 +985,7 @@ public class CommArea {
 	 * Converts the ASCII value converted from EBCDIC with signal to ASCII value with signal.
 	 * 		Ex.: 0001239I -> +00012399 
 	 * 			 0001239R -> -00012399
+	 * 			 00012399 -> +00012399
 	 * 
 	 * ref.: https://www.ibm.com/support/knowledgecenter/pt-br/SSKM8N_8.0.0/com.ibm.etools.mft.doc/ad06900_.htm
 	 */
@@ -583,8 +993,15 @@ public class CommArea {
 		String newValue = value.substring(0, value.length()-1);
 		String signal = value.substring(value.length()-1);
 		
+		if(value.startsWith("+") || value.startsWith("-")) {
+			return value;
+		}
+		
 		boolean positive = true;
 		int pos = POSITIVES.indexOf(signal);
+		if(pos == -1) {
+			pos = DIGITS.indexOf(signal);
+		}
 		if(pos == -1) {
 			pos = NEGATIVES.indexOf(signal);
 			positive = false;
@@ -604,78 +1021,135 @@ public class CommArea {
 		return newValue;
 	}
 	
-	/**
-	 * +000123.99 -> 0001239I
-	 * -000123.99 -> 0001239R
-	 */
-	private String unconvertSignal(String value) {
-		String newValue = value;
-		
-		if(value != null && !value.isEmpty()) {
-			newValue = value.substring(1, value.length()-1).replace(".", "");
-			String last = value.substring(value.length()-2, value.length()-1);
+	private int configurePICX(byte[] output, int pos, Object o, CommAreaField f) {
+		try {
+			f.set(o, readPICX(output, pos, f));
 			
-			int pos = DIGITS.indexOf(last);
-			if(pos == -1) {
-				pos = 0;
-			}
+			return pos + f.getLength();
+		} catch (Exception e) {
+			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
+		}
+	}
+	
+	private String readPICX(byte[] output, int pos, CommAreaField f) {
+		if(f.getEncoding() == Encoding.BASE64) {
+			ByteBuffer b64 = Base64.getEncoder().encode(ByteBuffer.wrap(output, pos, f.getLength()));
+			return new String(b64.array(), 0, b64.remaining(), StandardCharsets.US_ASCII);
 			
-			if(value.startsWith("-")) {
-				newValue += NEGATIVES.charAt(pos);
-						
-			} else {
-				newValue += POSITIVES.charAt(pos);
-				
+		} else if(f.getEncoding() == Encoding.HEX) {
+			return hex(output, pos, f.getLength());
+			
+		} else {
+			return codePage(f).decodeTrimmed(output, pos, f.getLength());
+		}
+	}
+	
+	private int configureREDEFINES(byte[] output, int pos, Object o, CommAreaField f) {
+		try {
+			Object value = f.get(o);
+			if (value == null) {
+				value = f.getType().newInstance();
+				f.set(o, value);
 			}
+			
+			return from(f.getLayout(), output, pos, value);
+		} catch (Exception e) {
+			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
 		}
-		
-		return newValue;
 	}
-
-	private int configurePICX(byte[] output, int pos, Object o, Field f) {
+	
+	/**
+	 * OCCURS: the array is kept when it has the number of elements, otherwise
+	 * a new one is created. Lists and nested objects are reused in place.
+	 */
+	private int configureOCCURS(byte[] output, int pos, Object o, CommAreaField f) {
 		try {
-			PICX picx = f.getAnnotation(PICX.class);
-			if (picx != null) {
+			Object table = f.get(o);
+			int count = f.count(o);
+			CommAreaField e = f.getElement();
+			int stride = e.getLength();
+			
+			if (List.class.isAssignableFrom(f.getType())) {
+				@SuppressWarnings("unchecked")
+				List<Object> list = (List<Object>) table;
+				if (list == null) {
+					list = new ArrayList<Object>(count);
+					f.set(o, list);
+				}
+				for (int i = 0; i < count; i++, pos += stride) {
+					Object value = readElement(output, pos, e, i < list.size() ? list.get(i) : null);
+					if (i < list.size()) {
+						list.set(i, value);
+					} else {
+						list.add(value);
+					}
+				}
+				while (list.size() > count) {
+					list.remove(list.size() - 1);
+				}
+				return pos;
+			}
+			
+			if (table == null || Array.getLength(table) != count) {
+				table = Array.newInstance(e.getType(), count);
+				f.set(o, table);
+			}
+			
+			if (table instanceof int[]) {
+				int[] a = (int[]) table;
+				for (int i = 0; i < count; i++, pos += stride) {
+					a[i] = Math.toIntExact(readLong(output, pos, e));
+				}
 				
-				byte[] buf = Arrays.copyOfRange(output, pos, pos + picx.value());
-				Object value = null;
+			} else if (table instanceof long[]) {
+				long[] a = (long[]) table;
+				for (int i = 0; i < count; i++, pos += stride) {
+					a[i] = readLong(output, pos, e);
+				}
 				
-				if(picx.encoding() == Encoding.BASE64) {
-					value = Base64.getEncoder().encodeToString(buf);
-					
-				} else if(picx.encoding() == Encoding.HEX) {
-					value = hex(buf);
-					
-				} else {
-					String v = fromBytes(buf);
-					if(v != null) {
-						value = v.trim();
+			} else if (table instanceof short[]) {
+				short[] a = (short[]) table;
+				for (int i = 0; i < count; i++, pos += stride) {
+					long v = readLong(output, pos, e);
+					if (v != (short) v) {
+						throw new JavaCicsException("Value out of range: [" + v + "] : [short]");
 					}
+					a[i] = (short) v;
 				}
 				
-				f.setAccessible(true);
-				f.set(o, value);
+			} else if (table instanceof double[]) {
+				double[] a = (double[]) table;
+				for (int i = 0; i < count; i++, pos += stride) {
+					a[i] = readDouble(output, pos, e);
+				}
+				
+			} else if (table instanceof Object[]) {
+				Object[] a = (Object[]) table;
+				for (int i = 0; i < count; i++, pos += stride) {
+					a[i] = readElement(output, pos, e, a[i]);
+				}
+				
+			} else {
+				throw new JavaCicsException("OCCURS type not supported: " + f.getType().getName());
 				
-				pos += picx.value();
 			}
-
+			
 			return pos;
 		} catch (Exception e) {
 			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
 		}
 	}
 	
-	private int configureREDEFINES(byte[] output, int pos, Object o, Field f) {
-		try {
-			REDEFINES redefines = f.getAnnotation(REDEFINES.class);
-			if (redefines != null) {
-				f.setAccessible(true);
-				pos += from(Arrays.copyOfRange(output, pos, output.length), f.get(o));
-			}
-
-			return pos;
-		} catch (Exception e) {
-			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
+	private Object readElement(byte[] output, int pos, CommAreaField e, Object current) throws Exception {
+		switch (e.getKind()) {
+		case NUMERIC:
+			return readNumeric(output, pos, e);
+		case ALPHANUMERIC:
+			return readPICX(output, pos, e);
+		default:
+			Object value = current != null ? current : e.getType().newInstance();
+			from(e.getLayout(), output, pos, value);
+			return value;
 		}
 	}
 
@@ -0,0 +1,48 @@
+package com.naskar.jmft.cics;
+
+/**
+ * Encoder/decoder of one POJO class to/from COMMAREA bytes.
+ *
+ * {@link CommArea} delegates to a codec when there is one for the class, either
+ * registered with {@link CommArea#register(Class, CommAreaCodec)} or found by name
+ * next to the POJO (Data -> DataCommAreaCodec, with a public no-arg constructor).
+ * Otherwise the class is mapped through its {@link CommAreaLayout}.
+ *
+ * 		Ex.:
+ *
+ * 			public class DataCommAreaCodec implements CommAreaCodec<Data> {
+ *
+ * 				public int length(Data o) {
+ * 					return 8;
+ * 				}
+ *
+ * 				public int encode(Data o, byte[] dst, int offset) {
+ * 					...
+ * 					return offset + 8;
+ * 				}
+ *
+ * 				public int decode(byte[] src, int offset, Data o) {
+ * 					...
+ * 					return offset + 8;
+ * 				}
+ * 			}
+ *
+ */
+public interface CommAreaCodec<T> {
+
+	/**
+	 * Size in bytes of the COMMAREA of the object.
+	 */
+	int length(T o);
+
+	/**
+	 * Writes the object at dst[offset] and returns the position after the last byte written.
+	 */
+	int encode(T o, byte[] dst, int offset);
+
+	/**
+	 * Reads the object from src[offset] and returns the position after the last byte read.
+	 */
+	int decode(byte[] src, int offset, T o);
+
+}
@@ -0,0 +1,347 @@
+package com.naskar.jmft.cics;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * One annotated field of a {@link CommAreaLayout}: where it sits in the COMMAREA,
+ * how many bytes it takes and how its value is represented.
+ *
+ * The value is read and written through method handles bound once to the field,
+ * so encoding and decoding don't go through {@link Field#get} and {@link Field#set}.
+ * Primitive fields also have long and double accessors, read and written without boxing.
+ *
+ * An {@link OCCURS} field has the element: a field without accessors, of the element type,
+ * whose length is the stride of the table.
+ */
+public final class CommAreaField {
+
+	public enum Kind {
+		NUMERIC,
+		ALPHANUMERIC,
+		GROUP,
+		OCCURS
+	}
+
+	private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType LONG_GETTER = MethodType.methodType(long.class, Object.class);
+	private static final MethodType LONG_SETTER = MethodType.methodType(void.class, Object.class, long.class);
+	private static final MethodType DOUBLE_GETTER = MethodType.methodType(double.class, Object.class);
+	private static final MethodType DOUBLE_SETTER = MethodType.methodType(void.class, Object.class, double.class);
+
+	private final Field field;
+	private final Class<?> type;
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+	private final MethodHandle longGetter;
+	private final MethodHandle longSetter;
+	private final MethodHandle doubleGetter;
+	private final MethodHandle doubleSetter;
+	private final Kind kind;
+	private final int offset;
+	private final int length;
+	private final int digits;
+	private final int decimal;
+	private final boolean signed;
+	private final Usage usage;
+	private final Encoding encoding;
+	private final CodePage codePage;
+	private final CommAreaLayout layout;
+	private final CommAreaField element;
+	private final int occurs;
+	private final CommAreaField dependingOn;
+
+	/**
+	 * The element type is null for a field of the POJO, with accessors.
+	 */
+	private CommAreaField(Field field, Class<?> elementType, Kind kind, int offset, int length, int digits, int decimal,
+			boolean signed, Usage usage, Encoding encoding, CodePage codePage, CommAreaLayout layout,
+			CommAreaField element, int occurs, CommAreaField dependingOn) {
+		this.field = field;
+		this.type = elementType != null ? elementType : field.getType();
+		this.kind = kind;
+		this.offset = offset;
+		this.length = length;
+		this.digits = digits;
+		this.decimal = decimal;
+		this.signed = signed;
+		this.usage = usage;
+		this.encoding = encoding;
+		this.codePage = codePage;
+		this.layout = layout;
+		this.element = element;
+		this.occurs = occurs;
+		this.dependingOn = dependingOn;
+
+		if(elementType != null) {
+			this.getter = null;
+			this.setter = null;
+			this.longGetter = null;
+			this.longSetter = null;
+			this.doubleGetter = null;
+			this.doubleSetter = null;
+			return;
+		}
+
+		try {
+			field.setAccessible(true);
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle getter = lookup.unreflectGetter(field);
+			MethodHandle setter = lookup.unreflectSetter(field);
+			this.getter = getter.asType(GETTER);
+			this.setter = setter.asType(SETTER);
+
+			if(isPrimitive()) {
+				this.longGetter = MethodHandles.explicitCastArguments(getter, LONG_GETTER);
+				this.longSetter = MethodHandles.explicitCastArguments(setter, LONG_SETTER);
+				this.doubleGetter = MethodHandles.explicitCastArguments(getter, DOUBLE_GETTER);
+				this.doubleSetter = MethodHandles.explicitCastArguments(setter, DOUBLE_SETTER);
+			} else {
+				this.longGetter = null;
+				this.longSetter = null;
+				this.doubleGetter = null;
+				this.doubleSetter = null;
+			}
+		} catch (IllegalAccessException e) {
+			throw new JavaCicsException("ERROR on field: " + field.getName(), e);
+		}
+	}
+
+	static CommAreaField numeric(Field field, Class<?> elementType, int offset, int digits, int decimal, 
+			boolean signed, Usage usage) {
+		int length = digits + decimal;
+		if(usage == Usage.COMP_3) {
+			length = PackedDecimal.length(digits + decimal);
+		} else if(usage.isBinary()) {
+			length = Binary.length(digits + decimal);
+		} else if(usage == Usage.COMP_1) {
+			length = HexFloat.SHORT;
+		} else if(usage == Usage.COMP_2) {
+			length = HexFloat.LONG;
+		}
+		return new CommAreaField(field, elementType, Kind.NUMERIC, offset, length, digits, decimal, signed, usage, 
+				null, null, null, null, 0, null);
+	}
+
+	static CommAreaField alphanumeric(Field field, Class<?> elementType, int offset, int length, 
+			Encoding encoding, CodePage codePage) {
+		return new CommAreaField(field, elementType, Kind.ALPHANUMERIC, offset, length, 0, 0, false, null, 
+				encoding, codePage, null, null, 0, null);
+	}
+
+	static CommAreaField group(Field field, Class<?> elementType, int offset, CommAreaLayout layout) {
+		return new CommAreaField(field, elementType, Kind.GROUP, offset, layout.getLength(), 0, 0, false, null, 
+				null, null, layout, null, 0, null);
+	}
+
+	static CommAreaField occurs(Field field, int offset, CommAreaField element, int occurs, CommAreaField dependingOn) {
+		return new CommAreaField(field, null, Kind.OCCURS, offset, element.getLength() * occurs, 0, 0, false, null, 
+				null, null, null, element, occurs, dependingOn);
+	}
+
+	Object get(Object o) {
+		try {
+			return (Object) getter.invokeExact(o);
+		} catch (Throwable e) {
+			throw new JavaCicsException("ERROR on field: " + getName(), e);
+		}
+	}
+
+	void set(Object o, Object value) {
+		try {
+			setter.invokeExact(o, value);
+		} catch (Throwable e) {
+			throw new JavaCicsException("ERROR on field: " + getName(), e);
+		}
+	}
+
+	/**
+	 * Value of a primitive field, except boolean and char, as long.
+	 */
+	long getLong(Object o) {
+		try {
+			return (long) longGetter.invokeExact(o);
+		} catch (Throwable e) {
+			throw new JavaCicsException("ERROR on field: " + getName(), e);
+		}
+	}
+
+	/**
+	 * Sets a primitive field, except boolean and char, checking the range of int, short and byte.
+	 */
+	void setLong(Object o, long value) {
+		Class<?> type = getType();
+		if(type == int.class && value != (int) value
+				|| type == short.class && value != (short) value
+				|| type == byte.class && value != (byte) value) {
+			throw new JavaCicsException("Value out of range: [" + value + "] : [" + type + "]");
+		}
+		try {
+			longSetter.invokeExact(o, value);
+		} catch (Throwable e) {
+			throw new JavaCicsException("ERROR on field: " + getName(), e);
+		}
+	}
+
+	double getDouble(Object o) {
+		try {
+			return (double) doubleGetter.invokeExact(o);
+		} catch (Throwable e) {
+			throw new JavaCicsException("ERROR on field: " + getName(), e);
+		}
+	}
+
+	void setDouble(Object o, double value) {
+		try {
+			doubleSetter.invokeExact(o, value);
+		} catch (Throwable e) {
+			throw new JavaCicsException("ERROR on field: " + getName(), e);
+		}
+	}
+
+	/**
+	 * Numeric primitive field: byte, short, int, long, float or double.
+	 */
+	boolean isPrimitive() {
+		Class<?> type = getType();
+		return type.isPrimitive() && type != boolean.class && type != char.class;
+	}
+
+	/**
+	 * Floating point primitive field: float or double.
+	 */
+	boolean isPrimitiveFloat() {
+		return getType() == double.class || getType() == float.class;
+	}
+
+	Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * Number of elements of an {@link OCCURS} field: the value of the DEPENDING ON field 
+	 * or the maximum.
+	 */
+	int count(Object o) {
+		if(dependingOn == null) {
+			return occurs;
+		}
+
+		long count = 0;
+		if(dependingOn.isPrimitive()) {
+			count = dependingOn.getLong(o);
+		} else {
+			Object value = dependingOn.get(o);
+			if(value instanceof Number) {
+				count = ((Number) value).longValue();
+			} else if(value != null) {
+				count = Long.parseLong(String.valueOf(value).trim());
+			}
+		}
+
+		if(count < 0 || count > occurs) {
+			throw new JavaCicsException("OCCURS DEPENDING ON out of range: [" + count + "] : [" + occurs + "]");
+		}
+		return (int) count;
+	}
+
+	/**
+	 * Bytes of the field in the object: less than the length when it depends on the count
+	 * of an OCCURS DEPENDING ON.
+	 */
+	int length(Object o) {
+		if(dependingOn != null) {
+			return element.getLength() * count(o);
+		}
+		if(kind == Kind.GROUP && layout.isVariable()) {
+			return layout.length(get(o));
+		}
+		return length;
+	}
+
+	public String getName() {
+		return field.getName();
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Integer digits of a numeric field: PIC 9(digits)V9(decimal).
+	 */
+	public int getDigits() {
+		return digits;
+	}
+
+	public int getDecimal() {
+		return decimal;
+	}
+
+	public boolean isSigned() {
+		return signed;
+	}
+
+	public Usage getUsage() {
+		return usage;
+	}
+
+	public Encoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Code page of a {@link PICX} field, null when it uses the one of the {@link CommArea}.
+	 */
+	public CodePage getCodePage() {
+		return codePage;
+	}
+
+	/**
+	 * Layout of the nested structure of a {@link REDEFINES} field or of an {@link OCCURS} element.
+	 */
+	public CommAreaLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Element of an {@link OCCURS} field.
+	 */
+	public CommAreaField getElement() {
+		return element;
+	}
+
+	/**
+	 * Maximum number of elements of an {@link OCCURS} field.
+	 */
+	public int getOccurs() {
+		return occurs;
+	}
+
+	/**
+	 * Field with the number of elements of an OCCURS DEPENDING ON, null when fixed.
+	 */
+	public CommAreaField getDependingOn() {
+		return dependingOn;
+	}
+
+	@Override
+	public String toString() {
+		return "CommAreaField [name=" + getName() + ", kind=" + kind + ", offset=" + offset + ", length=" + length
+				+ ", digits=" + digits + ", decimal=" + decimal + ", signed=" + signed + ", usage=" + usage
+				+ ", encoding=" + encoding + (element != null ? ", occurs=" + occurs + ", element=" + element : "")
+				+ (dependingOn != null ? ", dependingOn=" + dependingOn.getName() : "") + "]";
+	}
+
+}
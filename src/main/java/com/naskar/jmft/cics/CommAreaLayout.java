@@ -0,0 +1,209 @@
+package com.naskar.jmft.cics;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled COMMAREA layout of a POJO class: the PICTURE annotated fields
+ * in COMMAREA order with their offsets, lengths and usage.
+ *
+ * The layout is immutable, computed once per class and cached, so
+ * {@link CommArea} doesn't need to walk the class hierarchy on every call.
+ *
+ * 		Ex.:
+ *
+ * 			CommAreaLayout layout = CommAreaLayout.of(Data.class);
+ * 			layout.getLength(); // size of the COMMAREA
+ *
+ * With an OCCURS DEPENDING ON the layout is variable: the offsets and the length 
+ * are the ones of the maximum number of elements and {@link #length(Object)} gives 
+ * the size of the COMMAREA of an object.
+ */
+public final class CommAreaLayout {
+
+	private static final ConcurrentMap<Class<?>, CommAreaLayout> layouts =
+			new ConcurrentHashMap<Class<?>, CommAreaLayout>();
+
+	private final Class<?> type;
+	private final List<CommAreaField> fields;
+	private final int length;
+	private final boolean variable;
+
+	private CommAreaLayout(Class<?> type, List<CommAreaField> fields, int length) {
+		this.type = type;
+		this.fields = Collections.unmodifiableList(fields);
+		this.length = length;
+
+		boolean variable = false;
+		for(CommAreaField f : fields) {
+			if(f.getDependingOn() != null || f.getKind() == CommAreaField.Kind.GROUP && f.getLayout().isVariable()) {
+				variable = true;
+			}
+		}
+		this.variable = variable;
+	}
+
+	public static CommAreaLayout of(Class<?> type) {
+		CommAreaLayout layout = layouts.get(type);
+		if(layout == null) {
+			layout = compile(type);
+			CommAreaLayout previous = layouts.putIfAbsent(type, layout);
+			if(previous != null) {
+				layout = previous;
+			}
+		}
+		return layout;
+	}
+
+	private static CommAreaLayout compile(Class<?> type) {
+		List<CommAreaField> fields = new ArrayList<CommAreaField>();
+		int offset = 0;
+
+		for(Field f : getFields(type)) {
+			if(Modifier.isStatic(f.getModifiers())) {
+				continue;
+			}
+			CommAreaField field = compile(f, offset, fields);
+			if(field != null) {
+				fields.add(field);
+				offset += field.getLength();
+			}
+		}
+
+		return new CommAreaLayout(type, fields, offset);
+	}
+
+	private static CommAreaField compile(Field f, int offset, List<CommAreaField> previous) {
+		try {
+			OCCURS occurs = f.getAnnotation(OCCURS.class);
+			if(occurs != null) {
+				return compileOccurs(f, offset, occurs, previous);
+			}
+
+			return compile(f, null, offset);
+		} catch (Exception e) {
+			throw new JavaCicsException("ERROR on field: " + f.getName(), e);
+		}
+	}
+
+	/**
+	 * The field, or the element of an OCCURS when the element type is given.
+	 */
+	private static CommAreaField compile(Field f, Class<?> elementType, int offset) {
+		PIC9 pic9 = f.getAnnotation(PIC9.class);
+		if(pic9 != null) {
+			return CommAreaField.numeric(f, elementType, offset, pic9.value(), pic9.decimal(), false, pic9.usage());
+		}
+
+		PICS9 pics9 = f.getAnnotation(PICS9.class);
+		if(pics9 != null) {
+			return CommAreaField.numeric(f, elementType, offset, pics9.value(), pics9.decimal(), true, pics9.usage());
+		}
+
+		PICX picx = f.getAnnotation(PICX.class);
+		if(picx != null) {
+			CodePage codePage = picx.codePage().isEmpty() ? null : CodePage.forName(picx.codePage());
+			return CommAreaField.alphanumeric(f, elementType, offset, picx.value(), picx.encoding(), codePage);
+		}
+
+		REDEFINES redefines = f.getAnnotation(REDEFINES.class);
+		if(redefines != null || elementType != null) {
+			Class<?> type = elementType != null ? elementType : f.getType();
+			return CommAreaField.group(f, elementType, offset, of(type));
+		}
+
+		return null;
+	}
+
+	private static CommAreaField compileOccurs(Field f, int offset, OCCURS occurs, List<CommAreaField> previous) {
+		Class<?> elementType = null;
+		if(f.getType().isArray()) {
+			elementType = f.getType().getComponentType();
+
+		} else if(List.class.isAssignableFrom(f.getType())
+				&& f.getGenericType() instanceof ParameterizedType
+				&& ((ParameterizedType) f.getGenericType()).getActualTypeArguments()[0] instanceof Class) {
+			elementType = (Class<?>) ((ParameterizedType) f.getGenericType()).getActualTypeArguments()[0];
+
+		} else {
+			throw new JavaCicsException("OCCURS must be an array or a List<Element>: " + f.getType().getName());
+		}
+
+		CommAreaField element = compile(f, elementType, 0);
+		if(element.getKind() == CommAreaField.Kind.GROUP && element.getLayout().isVariable()) {
+			throw new JavaCicsException("OCCURS element must have fixed length: " + elementType.getName());
+		}
+
+		CommAreaField dependingOn = null;
+		if(!occurs.dependingOn().isEmpty()) {
+			for(CommAreaField p : previous) {
+				if(p.getName().equals(occurs.dependingOn()) && p.getKind() == CommAreaField.Kind.NUMERIC) {
+					dependingOn = p;
+				}
+			}
+			if(dependingOn == null) {
+				throw new JavaCicsException("DEPENDING ON must be a numeric field before the OCCURS: " + occurs.dependingOn());
+			}
+		}
+
+		return CommAreaField.occurs(f, offset, element, occurs.value(), dependingOn);
+	}
+
+	private static List<Field> getFields(Class<?> clazz) {
+		List<Field> fields = new ArrayList<Field>();
+		while (clazz != null && clazz != Object.class) {
+			Collections.addAll(fields, clazz.getDeclaredFields());
+			clazz = clazz.getSuperclass();
+		}
+		return fields;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	public List<CommAreaField> getFields() {
+		return fields;
+	}
+
+	/**
+	 * Size in bytes of the COMMAREA, with the maximum number of elements when variable.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Has an OCCURS DEPENDING ON, directly or in a REDEFINES.
+	 */
+	public boolean isVariable() {
+		return variable;
+	}
+
+	/**
+	 * Size in bytes of the COMMAREA of the object, with the number of elements 
+	 * of its OCCURS DEPENDING ON.
+	 */
+	public int length(Object o) {
+		if(!variable || o == null) {
+			return length;
+		}
+		int length = 0;
+		for(CommAreaField f : fields) {
+			length += f.length(o);
+		}
+		return length;
+	}
+
+	@Override
+	public String toString() {
+		return "CommAreaLayout [type=" + type.getName() + ", length=" + length + ", fields=" + fields + "]";
+	}
+
+}
@@ -1,6 +1,11 @@
 package com.naskar.jmft.cics;
 
+import java.util.Objects;
+
 /**
+ * Configurations with the same values are equal, so they share the {@link JavaGatewayPool}.
+ * Don't change a configuration after it is used.
+ * 
  *   Ex.:
  * 		new Configuration("tcp://host", 35500, "CICS1", "CICS1", "CICS1")
  *   refs.:
@@ -62,4 +67,30 @@ public class Configuration {
 		this.pw = pw;
 	}
 
+	@Override
+	public int hashCode() {
+		return Objects.hash(url, port, region, user, pw);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		Configuration other = (Configuration) obj;
+		return port == other.port 
+				&& Objects.equals(url, other.url) 
+				&& Objects.equals(region, other.region)
+				&& Objects.equals(user, other.user) 
+				&& Objects.equals(pw, other.pw);
+	}
+
+	@Override
+	public String toString() {
+		return "Configuration [url=" + url + ", port=" + port + ", region=" + region + ", user=" + user + "]";
+	}
+
 }
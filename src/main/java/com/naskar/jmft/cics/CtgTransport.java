@@ -0,0 +1,250 @@
+package com.naskar.jmft.cics;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.ibm.ctg.client.Callbackable;
+import com.ibm.ctg.client.ECIRequest;
+import com.ibm.ctg.client.GatewayRequest;
+import com.ibm.ctg.client.JavaGateway;
+
+/**
+ * Flows the ECI requests to the CICS Transaction Gateway (CTG), over the 
+ * gateway connections of the {@link JavaGatewayPool} of the configuration
+ * or of the pool given.
+ *
+ * The ECI timeout, in seconds, can be set for all the programs or per program, 
+ * so CTG gives up a call instead of waiting for a region that doesn't answer:
+ *
+ * 		Ex.:
+ *
+ * 			new CtgTransport().setTimeout(30).setTimeout("PROG1", 5);
+ *
+ *  refs.:
+ * 		https://www.ibm.com/support/knowledgecenter/en/SSZHFX/welcome.html
+ */
+public class CtgTransport implements CicsTransport {
+
+	private final JavaGatewayPool pool;
+	private final ConcurrentMap<String, Integer> timeouts = new ConcurrentHashMap<String, Integer>();
+	private volatile int timeout;
+
+	public CtgTransport() {
+		this(null);
+	}
+
+	/**
+	 * Uses the pool instead of the one of the configuration.
+	 */
+	public CtgTransport(JavaGatewayPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * ECI timeout in seconds of the programs without their own, 0 for none.
+	 */
+	public CtgTransport setTimeout(int timeout) {
+		this.timeout = check(timeout);
+		return this;
+	}
+
+	/**
+	 * ECI timeout in seconds of the program, 0 for none.
+	 */
+	public CtgTransport setTimeout(String program, int timeout) {
+		timeouts.put(program, check(timeout));
+		return this;
+	}
+
+	public int getTimeout(String program) {
+		Integer t = timeouts.get(program);
+		return t != null ? t : timeout;
+	}
+
+	private static int check(int timeout) {
+		if(timeout < 0 || timeout > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid timeout: [" + timeout + "]");
+		}
+		return timeout;
+	}
+
+	JavaGatewayPool pool(Configuration config) {
+		return pool != null ? pool : JavaGatewayPool.of(config);
+	}
+
+	@Override
+	public byte[] call(Configuration config, String transaction, String program, 
+			byte[] commarea, int dataLength, int replyLength) {
+		JavaGatewayPool pool = pool(config);
+		JavaGateway jg = null;
+		boolean broken = false;
+		try {
+			ECIRequest req = request(ECIRequest.ECI_SYNC, config, transaction, program, commarea, dataLength, replyLength);
+			
+			jg = pool.borrow();
+			int rc = 0;
+			try {
+				rc = jg.flow(req);
+			} catch (IOException e) {
+				broken = true;
+				throw e;
+			}
+			
+			if(rc != 0) {
+				throw error(req, rc);
+			}
+			
+			return req.Commarea != null ? req.Commarea : commarea;
+			
+		} catch (IOException e) {
+			throw new CicsConnectionException(e);
+			
+		} catch (Exception e) {
+			throw new JavaCicsException(e);
+			
+		} finally {
+			if(jg != null) {
+				if(broken) {
+					pool.invalidate(jg);
+				} else {
+					pool.release(jg);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Asynchronous ECI request (ECI_ASYNC): the caller isn't blocked while CICS works 
+	 * and the future is completed with the reply COMMAREA by the CTG callback. 
+	 * The gateway connection is borrowed from the pool until the reply arrives.
+	 */
+	@Override
+	public CompletableFuture<byte[]> callAsync(Configuration config, String transaction, String program, 
+			byte[] commarea, int dataLength, int replyLength) {
+		CompletableFuture<byte[]> future = new CompletableFuture<byte[]>();
+		JavaGatewayPool pool = pool(config);
+		JavaGateway jg = null;
+		try {
+			ECIRequest req = request(ECIRequest.ECI_ASYNC, config, transaction, program, commarea, dataLength, replyLength);
+			
+			jg = pool.borrow();
+			req.setCallback(new Reply(future, pool, jg));
+			
+			int rc = jg.flow(req);
+			if(rc != 0) {
+				pool.release(jg);
+				future.completeExceptionally(error(req, rc));
+			}
+			
+		} catch (IOException e) {
+			pool.invalidate(jg);
+			future.completeExceptionally(new CicsConnectionException(e));
+			
+		} catch (Exception e) {
+			if(jg != null) {
+				pool.release(jg);
+			}
+			future.completeExceptionally(e instanceof JavaCicsException ? e : new JavaCicsException(e));
+			
+		}
+		return future;
+	}
+	
+	/**
+	 * Completes the future of an asynchronous request when CTG gives the reply.
+	 */
+	private static class Reply implements Callbackable {
+		
+		private final CompletableFuture<byte[]> future;
+		private final JavaGatewayPool pool;
+		private final JavaGateway jg;
+		private volatile ECIRequest reply;
+		
+		Reply(CompletableFuture<byte[]> future, JavaGatewayPool pool, JavaGateway jg) {
+			this.future = future;
+			this.pool = pool;
+			this.jg = jg;
+		}
+		
+		@Override
+		public void setResults(GatewayRequest result) {
+			this.reply = (ECIRequest) result;
+		}
+		
+		@Override
+		public void run() {
+			pool.release(jg);
+			
+			ECIRequest req = reply;
+			if(req == null) {
+				future.completeExceptionally(new JavaCicsException("Asynchronous request without reply."));
+			} else if(req.getRc() != 0) {
+				future.completeExceptionally(error(req, req.getRc()));
+			} else {
+				future.complete(req.Commarea);
+			}
+		}
+		
+	}
+	
+	private ECIRequest request(int callType, Configuration config, String transaction, String program, 
+			byte[] commarea, int dataLength, int replyLength) {
+		ECIRequest req = new ECIRequest(callType, 
+				config.getRegion(), 
+				config.getUser(), 
+				config.getPw(),
+				program, 
+				transaction, 
+				commarea);
+		
+		// Commarea_Length stays the whole COMMAREA, only the bytes on the wire are cut
+		if(dataLength < commarea.length) {
+			req.setCommareaOutboundLength(dataLength);
+		}
+		if(replyLength < commarea.length) {
+			req.setCommareaInboundLength(replyLength);
+		}
+		
+		int t = getTimeout(program);
+		if(t > 0) {
+			req.setECITimeout((short) t);
+		}
+		
+		return req;
+	}
+	
+	static JavaCicsException error(ECIRequest req, int rc) {
+		StringBuilder msg = new StringBuilder("Error: RC [" + rc + "]: [" + req.getRcString() + "] CICS: [" + req.getCicsRcString() + "]");
+		
+		if (req.getCicsRc() == ECIRequest.ECI_ERR_SECURITY_ERROR 
+                || (req.Abend_Code != null && req.Abend_Code.equalsIgnoreCase("AEY7"))) {
+			msg.append("Invalid username or password.");
+		}
+		
+		if (req.getCicsRc() == ECIRequest.ECI_ERR_TRANSACTION_ABEND) { 
+			msg.append(" ABEND: [" + req.Abend_Code + "]");
+		}
+		
+		if (isConnectionError(rc)) {
+			return new CicsConnectionException(msg.toString());
+		}
+		return new JavaCicsException(msg.toString());
+	}
+	
+	/**
+	 * Return codes of a request that didn't get to CICS or lost its reply.
+	 */
+	static boolean isConnectionError(int rc) {
+		return rc == ECIRequest.ECI_ERR_NO_CICS
+				|| rc == ECIRequest.ECI_ERR_CICS_DIED
+				|| rc == ECIRequest.ECI_ERR_NO_REPLY
+				|| rc == ECIRequest.ECI_ERR_RESPONSE_TIMEOUT
+				|| rc == ECIRequest.ECI_ERR_SYSTEM_ERROR
+				|| rc == ECIRequest.ECI_ERR_RESOURCE_SHORTAGE
+				|| rc == ECIRequest.ECI_ERR_NO_SESSIONS
+				|| rc == ECIRequest.ECI_ERR_MAX_SESSIONS;
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.naskar.jmft.cics;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Scales a double to the unscaled long of a PICTURE with decimals: 
+ * PIC 9(5)V99 with 123.456 -> 12346.
+ *
+ * The rounding is of the decimal of the double, as shown by {@link Double#toString(double)}
+ * and {@link BigDecimal#valueOf(double)}: 123.455 -> 12346, or of its exact binary value,
+ * like {@link BigDecimal#BigDecimal(double)} and {@link java.text.DecimalFormat}: 123.455 -> 12345.
+ *
+ * Both only differ near a tie, so there is no allocation when the scaled value 
+ * is far enough from one.
+ */
+public final class FixedPoint {
+
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+	};
+
+	/**
+	 * Below it the error of value * 10^decimal is under 2^-13.
+	 */
+	private static final double EXACT = 0x1p40;
+
+	/**
+	 * Distance from the tie that the error can't cross.
+	 */
+	private static final double TIE = 0x1p-10;
+
+	private FixedPoint() {
+	}
+
+	/**
+	 * Unscaled value of the decimal of the double with the decimal places.
+	 */
+	public static long unscaled(double value, int decimal, RoundingMode rounding) {
+		return unscaled(value, decimal, rounding, false);
+	}
+
+	/**
+	 * Unscaled value of the double with the decimal places, 
+	 * rounding its exact binary value when binary.
+	 */
+	public static long unscaled(double value, int decimal, RoundingMode rounding, boolean binary) {
+		if(Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new JavaCicsException("Value invalid: [" + value + "]");
+		}
+
+		if(decimal < POWERS_OF_TEN.length 
+				&& (rounding == RoundingMode.HALF_UP || rounding == RoundingMode.HALF_EVEN)) {
+			double scaled = Math.abs(value) * POWERS_OF_TEN[decimal];
+			if(scaled < EXACT) {
+				long integer = (long) scaled;
+				double fraction = scaled - integer;
+				if(Math.abs(fraction - 0.5) > TIE) {
+					long v = fraction > 0.5 ? integer + 1 : integer;
+					return value < 0 ? -v : v;
+				}
+			}
+		}
+
+		BigDecimal exact = binary ? new BigDecimal(value) : BigDecimal.valueOf(value);
+		BigInteger v = exact.setScale(decimal, rounding).unscaledValue();
+		if(v.bitLength() > 63) {
+			throw new JavaCicsException("Value invalid size: [" + value + "] : [" + decimal + "]");
+		}
+		return v.longValue();
+	}
+
+	/**
+	 * Checks if the unscaled value fits in the digits of the PICTURE.
+	 */
+	public static boolean fits(long value, int digits) {
+		return digits > PackedDecimal.LONG_DIGITS || Binary.fitsDigits(value, digits);
+	}
+
+	/**
+	 * Drops the high-order digits that don't fit in the PICTURE.
+	 */
+	public static long truncate(long value, int digits) {
+		return fits(value, digits) ? value : value % (long) POWERS_OF_TEN[digits];
+	}
+
+}
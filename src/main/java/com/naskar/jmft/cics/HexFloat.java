@@ -0,0 +1,91 @@
+package com.naskar.jmft.cics;
+
+/**
+ * IBM hexadecimal floating point (COMP-1 and COMP-2): 
+ * the signal bit, a 7 bits exponent of 16 biased by 64 and the fraction.
+ *
+ * 		COMP-1	4 bytes, 24 bits fraction
+ * 		COMP-2	8 bytes, 56 bits fraction
+ *
+ * 		Ex.: 1.0 -> 41 10 00 00
+ * 			-1.0 -> C1 10 00 00
+ *
+ * COMP-2 holds any double of its range without loss, COMP-1 is rounded to 24 bits.
+ * Values smaller than the range are written as zero.
+ *
+ * ref.: https://www.ibm.com/support/knowledgecenter/en/SSLTBW_2.3.0/com.ibm.zos.v2r3.ceev100/hexfloat.htm
+ */
+public final class HexFloat {
+
+	public static final int SHORT = 4;
+	public static final int LONG = 8;
+
+	private static final int BIAS = 64;
+	private static final long FRACTION = 0x00FFFFFFFFFFFFFFL;
+
+	private HexFloat() {
+	}
+
+	/**
+	 * Writes the value at dst[pos] in size bytes, 4 (COMP-1) or 8 (COMP-2).
+	 */
+	public static void encode(double value, byte[] dst, int pos, int size) {
+		if(Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new JavaCicsException("Value invalid: [" + value + "]");
+		}
+
+		long bits = 0;
+		double abs = Math.abs(value);
+		if(abs >= Double.MIN_NORMAL) {
+			// abs = mantissa * 2^(e - 52) = fraction * 16^(exponent - 14)
+			int e = Math.getExponent(abs);
+			long mantissa = Double.doubleToRawLongBits(abs) & 0x000FFFFFFFFFFFFFL | 0x0010000000000000L;
+			int exponent = Math.floorDiv(e, 4) + 1;
+			long fraction = mantissa << Math.floorMod(e, 4);
+
+			if(size == SHORT) {
+				fraction = (fraction + (1L << 31)) >>> 32;
+				if(fraction >>> 24 != 0) {
+					fraction >>>= 4;
+					exponent++;
+				}
+				fraction <<= 32;
+			}
+
+			exponent += BIAS;
+			if(exponent > 127) {
+				throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+			}
+			if(exponent >= 0) {
+				bits = (long) exponent << 56 | fraction;
+			}
+		}
+		if(bits != 0 && value < 0) {
+			bits |= Long.MIN_VALUE;
+		}
+
+		for(int i = 0; i < size; i++) {
+			dst[pos + i] = (byte) (bits >>> (56 - i * 8));
+		}
+	}
+
+	/**
+	 * Reads the value at src[pos] from size bytes, 4 (COMP-1) or 8 (COMP-2).
+	 */
+	public static double decode(byte[] src, int pos, int size) {
+		long bits = 0;
+		for(int i = 0; i < size; i++) {
+			bits |= (src[pos + i] & 0xFFL) << (56 - i * 8);
+		}
+
+		long fraction = bits & FRACTION;
+		if(fraction == 0) {
+			return 0.0;
+		}
+
+		int exponent = (int) (bits >>> 56 & 0x7F) - BIAS;
+		double value = Math.scalb((double) fraction, exponent * 4 - 56);
+		return bits < 0 ? -value : value;
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.naskar.jmft.cics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.ibm.ctg.client.JavaGateway;
+import com.naskar.jmft.pool.ConnectionFactory;
+import com.naskar.jmft.pool.ConnectionPool;
+
+/**
+ * Pool of open {@link JavaGateway} connections to the CTG of a {@link Configuration},
+ * so the requests don't pay a TCP (and TLS) handshake each.
+ *
+ * {@link Cics} uses the pool of its configuration, created on the first call with 
+ * the default sizes, unless another one is registered before:
+ *
+ * 		Ex.:
+ *
+ * 			JavaGatewayPool.register(config, new JavaGatewayPool(config, 2, 16, 60000, 5000));
+ *
+ */
+public class JavaGatewayPool extends ConnectionPool<JavaGateway> {
+
+	public static final int DEFAULT_MIN_SIZE = 0;
+	public static final int DEFAULT_MAX_SIZE = 8;
+	public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+	public static final long DEFAULT_BORROW_TIMEOUT = 30000;
+
+	private static final ConcurrentMap<Configuration, JavaGatewayPool> pools = 
+			new ConcurrentHashMap<Configuration, JavaGatewayPool>();
+
+	public JavaGatewayPool(final Configuration config, int minSize, int maxSize, long idleTimeout, long borrowTimeout) {
+		super(new ConnectionFactory<JavaGateway>() {
+
+			@Override
+			public JavaGateway create() throws Exception {
+				return new JavaGateway(config.getUrl(), config.getPort());
+			}
+
+			@Override
+			public boolean isValid(JavaGateway connection) {
+				return connection.isOpen();
+			}
+
+			@Override
+			public void destroy(JavaGateway connection) throws Exception {
+				if(connection.isOpen()) {
+					connection.close();
+				}
+			}
+
+		}, minSize, maxSize, idleTimeout, borrowTimeout);
+	}
+
+	JavaGatewayPool(ConnectionFactory<JavaGateway> factory, int minSize, int maxSize, long idleTimeout, long borrowTimeout) {
+		super(factory, minSize, maxSize, idleTimeout, borrowTimeout);
+	}
+
+	public JavaGatewayPool(Configuration config) {
+		this(config, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT, DEFAULT_BORROW_TIMEOUT);
+	}
+
+	/**
+	 * The pool of the configuration, created with the default sizes when there isn't one.
+	 */
+	public static JavaGatewayPool of(Configuration config) {
+		JavaGatewayPool pool = pools.get(config);
+		if(pool == null) {
+			pool = new JavaGatewayPool(config);
+			JavaGatewayPool previous = pools.putIfAbsent(config, pool);
+			if(previous != null) {
+				pool.close();
+				pool = previous;
+			}
+		}
+		return pool;
+	}
+
+	/**
+	 * Uses the pool for the configuration, closing the previous one.
+	 */
+	public static void register(Configuration config, JavaGatewayPool pool) {
+		JavaGatewayPool previous = pools.put(config, pool);
+		if(previous != null && previous != pool) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Closes the pools of all configurations.
+	 */
+	public static void shutdown() {
+		for(Configuration config : pools.keySet()) {
+			JavaGatewayPool pool = pools.remove(config);
+			if(pool != null) {
+				pool.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.naskar.jmft.cics;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Calls {@link CicsHandler}s registered by program name in the same JVM, 
+ * as a stand-in of CTG and CICS to test and load test the client side.
+ *
+ * The COMMAREA is copied like on the wire: the handler gets only the first
+ * dataLength bytes and the caller gets only the first replyLength bytes back.
+ * Each call waits the latency, like the round trip to the region.
+ *
+ * 		Ex.:
+ *
+ * 			LocalTransport transport = new LocalTransport()
+ * 				.register("PROG1", handler)
+ * 				.setLatency(5);
+ *
+ * 			Cics cics = new Cics(config, "PRG1", "PROG1", transport);
+ *
+ */
+public class LocalTransport implements CicsTransport {
+
+	private final ConcurrentMap<String, CicsHandler> handlers = new ConcurrentHashMap<String, CicsHandler>();
+	private final ExecutorService executor;
+	private volatile long latency;
+
+	public LocalTransport() {
+		this(CicsExecutor.newExecutor());
+	}
+
+	/**
+	 * Runs the asynchronous calls in the executor.
+	 */
+	public LocalTransport(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public LocalTransport register(String program, CicsHandler handler) {
+		handlers.put(program, handler);
+		return this;
+	}
+
+	/**
+	 * Time in ms added to each call.
+	 */
+	public LocalTransport setLatency(long latency) {
+		this.latency = latency;
+		return this;
+	}
+
+	public long getLatency() {
+		return latency;
+	}
+
+	@Override
+	public byte[] call(Configuration config, String transaction, String program, 
+			byte[] commarea, int dataLength, int replyLength) {
+		byte[] received = Arrays.copyOf(Arrays.copyOf(commarea, dataLength), commarea.length);
+		
+		dispatch(transaction, program, received);
+		
+		if(latency > 0) {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JavaCicsException(e);
+			}
+		}
+		
+		System.arraycopy(received, 0, commarea, 0, replyLength);
+		return commarea;
+	}
+
+	/**
+	 * Runs the handler of the program on the COMMAREA as received by the region.
+	 */
+	void dispatch(String transaction, String program, byte[] commarea) {
+		CicsHandler handler = handlers.get(program);
+		if(handler == null) {
+			throw new JavaCicsException("Program not found: [" + program + "]");
+		}
+		
+		try {
+			handler.handle(transaction, commarea);
+		} catch (Exception e) {
+			throw new JavaCicsException("ABEND: [" + program + "]", e);
+		}
+	}
+
+	@Override
+	public CompletableFuture<byte[]> callAsync(final Configuration config, final String transaction, final String program, 
+			final byte[] commarea, final int dataLength, final int replyLength) {
+		return CompletableFuture.supplyAsync(new Supplier<byte[]>() {
+			@Override
+			public byte[] get() {
+				return call(config, transaction, program, commarea, dataLength, replyLength);
+			}
+		}, executor);
+	}
+
+}
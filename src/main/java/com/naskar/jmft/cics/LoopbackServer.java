@@ -0,0 +1,135 @@
+package com.naskar.jmft.cics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * TCP server on the loopback interface that answers the requests of {@link SocketTransport} 
+ * with the handlers of a {@link LocalTransport}, as a stand-in of CTG with a real network 
+ * round trip, connections and serialization.
+ *
+ * 		Ex.:
+ *
+ * 			try(LoopbackServer server = new LoopbackServer(local)) {
+ * 				SocketTransport transport = new SocketTransport("127.0.0.1", server.getPort());
+ * 				Cics cics = new Cics(config, "PRG1", "PROG1", transport);
+ * 				...
+ * 			}
+ *
+ * Each request is:
+ *
+ * 		transaction (UTF), program (UTF), COMMAREA length, data length, reply length (int), data
+ *
+ * and each reply is 0 and the reply bytes, or 1 and the error message (UTF).
+ */
+public class LoopbackServer implements Closeable {
+
+	private static final Logger logger = Logger.getLogger(LoopbackServer.class.getName());
+
+	static final int OK = 0;
+	static final int ERROR = 1;
+
+	private final LocalTransport transport;
+	private final ServerSocket server;
+	private final ExecutorService executor;
+
+	/**
+	 * Listens on a free port of 127.0.0.1.
+	 */
+	public LoopbackServer(LocalTransport transport) throws IOException {
+		this(transport, 0);
+	}
+
+	public LoopbackServer(LocalTransport transport, int port) throws IOException {
+		this.transport = transport;
+		this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		this.executor = CicsExecutor.newExecutor();
+		this.executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				accept();
+			}
+		});
+	}
+
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	private void accept() {
+		while(!server.isClosed()) {
+			try {
+				final Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						serve(socket);
+					}
+				});
+			} catch (IOException e) {
+				if(!server.isClosed()) {
+					logger.log(Level.WARNING, "ERROR on accept.", e);
+				}
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			while(true) {
+				String transaction = null;
+				try {
+					transaction = in.readUTF();
+				} catch (EOFException e) {
+					break;
+				}
+				String program = in.readUTF();
+				byte[] commarea = new byte[in.readInt()];
+				int dataLength = in.readInt();
+				int replyLength = in.readInt();
+				in.readFully(commarea, 0, dataLength);
+
+				try {
+					transport.call(null, transaction, program, commarea, dataLength, replyLength);
+					out.writeByte(OK);
+					out.write(commarea, 0, replyLength);
+				} catch (JavaCicsException e) {
+					out.writeByte(ERROR);
+					out.writeUTF(String.valueOf(e.getMessage()));
+				}
+				out.flush();
+			}
+		} catch (IOException e) {
+			if(!server.isClosed()) {
+				logger.log(Level.FINE, "Connection closed.", e);
+			}
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// already closed
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.close();
+		executor.shutdownNow();
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.naskar.jmft.cics;
+
+import java.math.RoundingMode;
+
+/**
+ * How {@link CommArea} writes Double and BigDecimal values into numeric PICTUREs.
+ *
+ * 		STRICT       rounds half up the decimal of the double, like COBOL ROUNDED,
+ * 		             and rejects values that don't fit in the PICTURE: 123.455 -> 123.46
+ * 		COMPATIBLE   rounds half even the exact binary value of the double and drops
+ * 		             the high-order digits that don't fit, like the DecimalFormat 
+ * 		             of the previous versions: 123.455 -> 123.45 (the default)
+ *
+ * 		Ex.:
+ *
+ * 			new CommArea(CodePage.CP1047, NumericMode.STRICT);
+ *
+ * COMPATIBLE writes the same bytes as the previous versions for PIC9 DISPLAY and COMP-3,
+ * except where those were wrong:
+ *
+ * 		PICS9 DISPLAY   keeps all the digits and writes the zone C or D in the last one,
+ * 		                the previous versions wrote 123.45 in PIC S9(3)V9(2) as F0 F2 F3 F4 C4
+ * 		                and 123 in PIC S9(5) as F0 F0 F1 F2 F3, now F1 F2 F3 F4 C5 and F0 F0 F1 F2 C3
+ * 		COMP-3          writes negative values, the previous versions failed on them
+ *
+ */
+public enum NumericMode {
+
+	STRICT(RoundingMode.HALF_UP, false),
+	COMPATIBLE(RoundingMode.HALF_EVEN, true);
+
+	private final RoundingMode rounding;
+	private final boolean binary;
+
+	private NumericMode(RoundingMode rounding, boolean binary) {
+		this.rounding = rounding;
+		this.binary = binary;
+	}
+
+	public RoundingMode getRounding() {
+		return rounding;
+	}
+
+	/**
+	 * Rounds the exact binary value of the double instead of its decimal.
+	 */
+	public boolean isBinary() {
+		return binary;
+	}
+
+}
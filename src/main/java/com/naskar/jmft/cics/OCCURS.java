@@ -0,0 +1,45 @@
+package com.naskar.jmft.cics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Table of an array or List field. The element is described by the PICTURE annotation
+ * of the field or, without one, by the annotated fields of the element class.
+ *
+ * 		Ex.: 05 CODES PIC 9(4) OCCURS 10 TIMES.
+ *
+ * 			@OCCURS(10)
+ * 			@PIC9(4)
+ * 			private int[] codes;
+ *
+ * 			 05 ITEM-COUNT PIC 9(3).
+ * 			 05 ITEMS OCCURS 1 TO 100 TIMES DEPENDING ON ITEM-COUNT.
+ *
+ * 			@PIC9(3)
+ * 			private Integer itemCount;
+ *
+ * 			@OCCURS(value = 100, dependingOn = "itemCount")
+ * 			private List<Item> items;
+ *
+ * The DEPENDING ON field must come before the table.
+ *
+ * ref.: https://www.ibm.com/support/knowledgecenter/en/SS6SG3_5.2.0/com.ibm.cobol52.ent.doc/PGandLR/ref/rlddeocc.html
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface OCCURS {
+
+	/**
+	 * Maximum number of elements.
+	 */
+	int value();
+
+	/**
+	 * Name of the field with the number of elements. Empty for a fixed table.
+	 */
+	String dependingOn() default "";
+
+}
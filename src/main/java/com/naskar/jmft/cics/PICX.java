@@ -12,5 +12,10 @@ public @interface PICX {
 	int value();
 	
 	Encoding encoding() default Encoding.ALPHA;
+	
+	/**
+	 * Code page of the text, like CP037. Empty uses the one of the CommArea.
+	 */
+	String codePage() default "";
 
 }
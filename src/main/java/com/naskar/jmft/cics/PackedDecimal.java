@@ -0,0 +1,176 @@
+package com.naskar.jmft.cics;
+
+import java.math.BigInteger;
+
+/**
+ * Packed decimal (COMP-3): two digits per byte, the signal in the last nibble.
+ *
+ * 		Ex.: PIC S9(5) COMP-3
+ *
+ * 			 12345 -> 12 34 5C
+ * 			-12345 -> 12 34 5D
+ *
+ * 		     PIC 9(5) COMP-3
+ *
+ * 			 12345 -> 12 34 5F
+ *
+ * Values up to 18 digits are handled as long, without allocation.
+ *
+ * ref.: https://www.ibm.com/support/knowledgecenter/en/SS6SG3_5.2.0/com.ibm.cobol52.ent.doc/PGandLR/ref/rlddecomp3.html
+ */
+public final class PackedDecimal {
+
+	public static final int POSITIVE = 0x0C;
+	public static final int NEGATIVE = 0x0D;
+	public static final int UNSIGNED = 0x0F;
+
+	/**
+	 * Digits that always fit in a long.
+	 */
+	public static final int LONG_DIGITS = 18;
+
+	private PackedDecimal() {
+	}
+
+	/**
+	 * Bytes of a packed decimal with the number of digits.
+	 */
+	public static int length(int digits) {
+		return digits / 2 + 1;
+	}
+
+	/**
+	 * Digits that fit in the bytes of a packed decimal.
+	 */
+	public static int digits(int size) {
+		return size * 2 - 1;
+	}
+
+	/**
+	 * Writes the value at dst[pos], right aligned in size bytes.
+	 * The signal is D when negative, C when positive and signed or F when unsigned.
+	 */
+	public static void encode(long value, boolean signed, byte[] dst, int pos, int size) {
+		int signal = value < 0 ? NEGATIVE : signed ? POSITIVE : UNSIGNED;
+
+		// negative remainders keep Long.MIN_VALUE out of Math.abs
+		long v = value < 0 ? value : -value;
+		int last = pos + size - 1;
+		dst[last] = (byte) (digit(v) << 4 | signal);
+		v /= 10;
+		for (int i = last - 1; i >= pos; i--) {
+			int low = digit(v);
+			v /= 10;
+			dst[i] = (byte) (digit(v) << 4 | low);
+			v /= 10;
+		}
+
+		if(v != 0) {
+			throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+		}
+	}
+
+	private static int digit(long negative) {
+		return (int) -(negative % 10);
+	}
+
+	/**
+	 * Writes the value at dst[pos], right aligned in size bytes.
+	 */
+	public static void encode(BigInteger value, boolean signed, byte[] dst, int pos, int size) {
+		if(value.bitLength() < 64) {
+			encode(value.longValue(), signed, dst, pos, size);
+			return;
+		}
+
+		String digits = value.abs().toString();
+		if(digits.length() > digits(size)) {
+			throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+		}
+
+		int signal = value.signum() < 0 ? NEGATIVE : signed ? POSITIVE : UNSIGNED;
+		int nibble = digits(size);
+		for (int i = pos; i < pos + size; i++) {
+			dst[i] = 0;
+		}
+		dst[pos + size - 1] = (byte) signal;
+		for (int i = digits.length() - 1; i >= 0; i--) {
+			nibble--;
+			int d = digits.charAt(i) - '0';
+			if(nibble % 2 == 0) {
+				dst[pos + nibble / 2] |= d << 4;
+			} else {
+				dst[pos + nibble / 2] |= d;
+			}
+		}
+	}
+
+	/**
+	 * Reads the value at src[pos] from size bytes.
+	 * Only B and D are negative signals, any other is read as positive.
+	 */
+	public static long decode(byte[] src, int pos, int size) {
+		if(digits(size) > LONG_DIGITS) {
+			BigInteger value = decodeBig(src, pos, size);
+			if(value.bitLength() > 63) {
+				throw new JavaCicsException("Value too large for long: [" + value + "]");
+			}
+			return value.longValue();
+		}
+
+		long value = 0;
+		int last = pos + size - 1;
+		for (int i = pos; i < last; i++) {
+			int b = src[i] & 0xFF;
+			value = value * 100 + check(src, pos, size, b >>> 4) * 10 + check(src, pos, size, b & 0x0F);
+		}
+		int b = src[last] & 0xFF;
+		value = value * 10 + check(src, pos, size, b >>> 4);
+
+		return isNegative(b & 0x0F) ? -value : value;
+	}
+
+	/**
+	 * Reads the value at src[pos] from size bytes, without digit limit.
+	 */
+	public static BigInteger decodeBig(byte[] src, int pos, int size) {
+		char[] digits = new char[digits(size) + 1];
+		digits[0] = '+';
+		int n = 1;
+		int last = pos + size - 1;
+		for (int i = pos; i <= last; i++) {
+			int b = src[i] & 0xFF;
+			digits[n++] = (char) ('0' + check(src, pos, size, b >>> 4));
+			if(i < last) {
+				digits[n++] = (char) ('0' + check(src, pos, size, b & 0x0F));
+			}
+		}
+		if(isNegative(src[last] & 0x0F)) {
+			digits[0] = '-';
+		}
+		return new BigInteger(new String(digits));
+	}
+
+	/**
+	 * Checks the signal nibble of the packed decimal at src[pos].
+	 */
+	public static boolean isNegative(byte[] src, int pos, int size) {
+		return isNegative(src[pos + size - 1] & 0x0F);
+	}
+
+	private static boolean isNegative(int signal) {
+		return signal == NEGATIVE || signal == 0x0B;
+	}
+
+	private static int check(byte[] src, int pos, int size, int digit) {
+		if(digit > 9) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = pos; i < pos + size; i++) {
+				sb.append(Character.forDigit((src[i] >>> 4) & 0x0F, 16)).append(Character.forDigit(src[i] & 0x0F, 16));
+			}
+			throw new JavaCicsException("Invalid packed decimal: [" + sb.toString().toUpperCase() + "]");
+		}
+		return digit;
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.naskar.jmft.cics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import com.naskar.jmft.pool.ConnectionFactory;
+import com.naskar.jmft.pool.ConnectionPool;
+import com.naskar.jmft.pool.PoolException;
+
+/**
+ * Flows the ECI requests over pooled TCP connections to a {@link LoopbackServer}.
+ */
+public class SocketTransport implements CicsTransport, Closeable {
+
+	public static final int DEFAULT_MIN_SIZE = 0;
+	public static final int DEFAULT_MAX_SIZE = 8;
+	public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+	public static final long DEFAULT_BORROW_TIMEOUT = 30000;
+
+	private final ConnectionPool<Connection> pool;
+	private final ExecutorService executor;
+
+	private static class Connection {
+
+		final Socket socket;
+		final DataInputStream in;
+		final DataOutputStream out;
+
+		Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+	}
+
+	public SocketTransport(String host, int port) {
+		this(host, port, DEFAULT_MAX_SIZE);
+	}
+
+	public SocketTransport(final String host, final int port, int maxSize) {
+		this.pool = new ConnectionPool<Connection>(new ConnectionFactory<Connection>() {
+
+			@Override
+			public Connection create() throws Exception {
+				Socket socket = new Socket(host, port);
+				socket.setTcpNoDelay(true);
+				return new Connection(socket);
+			}
+
+			@Override
+			public boolean isValid(Connection connection) {
+				return !connection.socket.isClosed();
+			}
+
+			@Override
+			public void destroy(Connection connection) throws Exception {
+				connection.socket.close();
+			}
+
+		}, DEFAULT_MIN_SIZE, maxSize, DEFAULT_IDLE_TIMEOUT, DEFAULT_BORROW_TIMEOUT);
+		this.executor = CicsExecutor.newExecutor();
+	}
+
+	@Override
+	public byte[] call(Configuration config, String transaction, String program, 
+			byte[] commarea, int dataLength, int replyLength) {
+		Connection c = null;
+		try {
+			c = pool.borrow();
+		} catch (PoolException e) {
+			throw new JavaCicsException(e.getMessage(), e);
+		}
+
+		boolean broken = true;
+		try {
+			c.out.writeUTF(transaction);
+			c.out.writeUTF(program);
+			c.out.writeInt(commarea.length);
+			c.out.writeInt(dataLength);
+			c.out.writeInt(replyLength);
+			c.out.write(commarea, 0, dataLength);
+			c.out.flush();
+
+			int status = c.in.readByte();
+			if(status != LoopbackServer.OK) {
+				String message = c.in.readUTF();
+				broken = false;
+				throw new JavaCicsException(message);
+			}
+			c.in.readFully(commarea, 0, replyLength);
+			broken = false;
+			return commarea;
+
+		} catch (IOException e) {
+			throw new CicsConnectionException(e);
+
+		} finally {
+			if(broken) {
+				pool.invalidate(c);
+			} else {
+				pool.release(c);
+			}
+		}
+	}
+
+	@Override
+	public CompletableFuture<byte[]> callAsync(final Configuration config, final String transaction, final String program, 
+			final byte[] commarea, final int dataLength, final int replyLength) {
+		return CompletableFuture.supplyAsync(new Supplier<byte[]>() {
+			@Override
+			public byte[] get() {
+				return call(config, transaction, program, commarea, dataLength, replyLength);
+			}
+		}, executor);
+	}
+
+	@Override
+	public void close() {
+		pool.close();
+		executor.shutdown();
+	}
+
+}
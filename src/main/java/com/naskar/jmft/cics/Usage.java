@@ -1,8 +1,35 @@
 package com.naskar.jmft.cics;
 
+/**
+ * USAGE clause of the numeric PICTUREs.
+ *
+ * 		DISPLAY          one EBCDIC digit per byte
+ * 		COMP_3           packed decimal, see {@link PackedDecimal}
+ * 		COMP, COMP_4     big-endian binary, limited to the PICTURE digits, see {@link Binary}
+ * 		COMP_5           big-endian binary, limited to the size of the field
+ * 		COMP_1           4 bytes IBM hexadecimal floating point, see {@link HexFloat}
+ * 		COMP_2           8 bytes IBM hexadecimal floating point
+ *
+ * The PICTURE digits of COMP_1 and COMP_2 are ignored.
+ *
+ * ref.: https://www.ibm.com/support/knowledgecenter/en/SS6SG3_5.2.0/com.ibm.cobol52.ent.doc/PGandLR/ref/rlddeusa.html
+ */
 public enum Usage {
 	
 	DISPLAY,
-	COMP_3
+	COMP_3,
+	COMP,
+	COMP_4,
+	COMP_5,
+	COMP_1,
+	COMP_2;
+	
+	boolean isBinary() {
+		return this == COMP || this == COMP_4 || this == COMP_5;
+	}
+	
+	boolean isFloat() {
+		return this == COMP_1 || this == COMP_2;
+	}
 
-}
\ No newline at end of file
+}
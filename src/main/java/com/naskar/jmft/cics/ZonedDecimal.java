@@ -0,0 +1,120 @@
+package com.naskar.jmft.cics;
+
+import java.math.BigInteger;
+
+/**
+ * Zoned decimal (DISPLAY): one EBCDIC digit per byte, zone F, 
+ * the signal in the zone of the last digit.
+ *
+ * 		Ex.: PIC S9(5)
+ *
+ * 			 12345 -> F1 F2 F3 F4 C5
+ * 			-12345 -> F1 F2 F3 F4 D5
+ *
+ * 		Ex.: PIC 9(5)
+ *
+ * 			 12345 -> F1 F2 F3 F4 F5
+ *
+ * The digits are written from and read into a long, without going through a String.
+ * Like {@link PackedDecimal}, signed values are written with the zone C or D and
+ * unsigned values with the zone F. On read F is also positive.
+ *
+ * ref.: https://www.ibm.com/support/knowledgecenter/en/SS6SG3_5.2.0/com.ibm.cobol52.ent.doc/PGandLR/ref/rlddezone.html
+ */
+public final class ZonedDecimal {
+
+	/**
+	 * Returned by decode when the bytes are not zoned digits.
+	 */
+	public static final long INVALID = Long.MIN_VALUE;
+
+	private static final int ZONE = 0xF0;
+	private static final int POSITIVE_ZONE = 0xC0;
+	private static final int NEGATIVE_ZONE = 0xD0;
+
+	private ZonedDecimal() {
+	}
+
+	/**
+	 * Writes the value at dst[pos], right aligned in size digits.
+	 * The zone of the last digit is C or D when signed, F when unsigned.
+	 */
+	public static void encode(long value, boolean signed, byte[] dst, int pos, int size) {
+		// negative remainders keep Long.MIN_VALUE out of Math.abs
+		long v = value < 0 ? value : -value;
+		for(int i = pos + size - 1; i >= pos; i--) {
+			dst[i] = (byte) (ZONE | (int) -(v % 10));
+			v /= 10;
+		}
+
+		if(v != 0) {
+			throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+		}
+
+		if(signed) {
+			sign(value < 0, dst, pos + size - 1);
+		}
+	}
+
+	/**
+	 * Writes the value at dst[pos], right aligned in size digits.
+	 */
+	public static void encode(BigInteger value, boolean signed, byte[] dst, int pos, int size) {
+		if(value.bitLength() < 64) {
+			encode(value.longValue(), signed, dst, pos, size);
+			return;
+		}
+
+		String digits = value.abs().toString();
+		if(digits.length() > size) {
+			throw new JavaCicsException("Value invalid size: [" + value + "] : [" + size + "]");
+		}
+
+		int start = pos + size - digits.length();
+		for(int i = pos; i < start; i++) {
+			dst[i] = (byte) ZONE;
+		}
+		for(int i = 0; i < digits.length(); i++) {
+			dst[start + i] = (byte) (ZONE | (digits.charAt(i) - '0'));
+		}
+
+		if(signed) {
+			sign(value.signum() < 0, dst, pos + size - 1);
+		}
+	}
+
+	private static void sign(boolean negative, byte[] dst, int last) {
+		dst[last] = (byte) ((negative ? NEGATIVE_ZONE : POSITIVE_ZONE) | (dst[last] & 0x0F));
+	}
+
+	/**
+	 * Reads the value at src[pos] from size bytes, up to {@link PackedDecimal#LONG_DIGITS} digits.
+	 * Only the zones B and D of the last digit are negative, A, C, E and F are positive.
+	 */
+	public static long decode(byte[] src, int pos, int size) {
+		if(size > PackedDecimal.LONG_DIGITS) {
+			return INVALID;
+		}
+
+		long value = 0;
+		int last = pos + size - 1;
+		for(int i = pos; i < last; i++) {
+			int b = src[i] & 0xFF;
+			if(b < 0xF0 || b > 0xF9) {
+				return INVALID;
+			}
+			value = value * 10 + (b & 0x0F);
+		}
+
+		int b = src[last] & 0xFF;
+		int zone = b >>> 4;
+		int digit = b & 0x0F;
+		if(digit > 9 || zone < 0x0A) {
+			return INVALID;
+		}
+		value = value * 10 + digit;
+
+		return zone == 0x0B || zone == 0x0D ? -value : value;
+	}
+
+}
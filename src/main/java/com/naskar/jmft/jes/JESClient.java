@@ -1,14 +1,22 @@
 package com.naskar.jmft.jes;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import org.apache.commons.net.ProtocolCommandEvent;
 import org.apache.commons.net.ProtocolCommandListener;
@@ -17,13 +25,29 @@ import org.apache.commons.net.ftp.FTPClientConfig;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPReply;
 
+/**
+ * FTP client of the JES interface of z/OS FTP server.
+ *
+ * The session keeps the FILETYPE, JESJOBNAME and JESOWNER of the last SITE commands,
+ * so each operation sends FILETYPE=JES or FILETYPE=SEQ only when the session 
+ * is in the other mode or the filters changed.
+ */
 public class JESClient extends FTPClient {
 	
 	private static final Logger logger = Logger.getLogger(JESClient.class.getName());
 	
+	public static final String FILETYPE_JES = "JES";
+	public static final String FILETYPE_SEQ = "SEQ";
+	
 	private String username = null;
 	private String nameFilter = "*";
 	private String ownerFilter = "*";
+	
+	// state of the session, null when unknown
+	private String fileType;
+	private String siteNameFilter;
+	private String siteOwnerFilter;
+	private boolean binary;
 
 	public JESClient() {
 		FTPClientConfig config = new FTPClientConfig();
@@ -79,15 +103,137 @@ public class JESClient extends FTPClient {
 		defineFilter();
 	}
 	
+	/**
+	 * Back to the default filters without a SITE command: the next JES command 
+	 * sends them when the session has others.
+	 */
+	void clearFilter() {
+		this.ownerFilter = username != null ? username : "*";
+		this.nameFilter = "*";
+	}
+	
+	/**
+	 * FILETYPE of the session: JES, SEQ or null when unknown.
+	 */
+	public String getFileType() {
+		return fileType;
+	}
+	
+	/**
+	 * Whether the session is in the FILETYPE, and for JES with the job filters, 
+	 * so the next command doesn't need a SITE.
+	 */
+	boolean isFileType(String fileType) {
+		if(!fileType.equals(this.fileType)) {
+			return false;
+		}
+		return !FILETYPE_JES.equals(fileType) 
+				|| (nameFilter.equalsIgnoreCase(siteNameFilter) && ownerFilter.equalsIgnoreCase(siteOwnerFilter));
+	}
+	
+	/**
+	 * Puts the session in FILETYPE=JES with the job filters, when it isn't already.
+	 */
+	public void setFileTypeJES() throws IOException {
+		defineFilter();
+	}
+	
+	/**
+	 * Puts the session in FILETYPE=SEQ, to read and write data sets, when it isn't already.
+	 */
+	public void setFileTypeSEQ() throws IOException {
+		if(!FILETYPE_SEQ.equals(fileType)) {
+			siteWithCheck("FILETYPE=SEQ");
+		}
+	}
+	
 	private void defineFilter() throws IOException {
+		if(FILETYPE_JES.equals(fileType) 
+				&& nameFilter.equalsIgnoreCase(siteNameFilter) 
+				&& ownerFilter.equalsIgnoreCase(siteOwnerFilter)) {
+			return;
+		}
+		
 		// quote site FILETYPE=JES JESJOBNAME=* JESOWNER=*
 		site(String.format("FILETYPE=JES JESJOBNAME=%s JESOWNER=%s", nameFilter, ownerFilter));
 		checkAndThrowError();
 		String reply = getReplyString();
 		if(reply.contains("is not authorized")) {
+			fileType = null;
 			throw new RuntimeException(reply);
 		}
 	}
+	
+	@Override
+	public int site(String parameters) throws IOException {
+		int reply = 0;
+		try {
+			reply = super.site(parameters);
+		} finally {
+			track(parameters, FTPReply.isPositiveCompletion(reply));
+		}
+		return reply;
+	}
+	
+	/**
+	 * Keeps the state of the session changed by the SITE parameters.
+	 */
+	void track(String parameters, boolean result) {
+		if(!result) {
+			fileType = null;
+			return;
+		}
+		
+		for(String parameter : parameters.trim().split("\\s+")) {
+			int i = parameter.indexOf('=');
+			if(i < 0) {
+				continue;
+			}
+			String key = parameter.substring(0, i).toUpperCase();
+			String value = parameter.substring(i + 1);
+			if("FILETYPE".equals(key)) {
+				fileType = value.toUpperCase();
+			} else if("JESJOBNAME".equals(key)) {
+				siteNameFilter = value;
+			} else if("JESOWNER".equals(key)) {
+				siteOwnerFilter = value;
+			}
+		}
+	}
+	
+	@Override
+	public void disconnect() throws IOException {
+		fileType = null;
+		siteNameFilter = null;
+		siteOwnerFilter = null;
+		binary = false;
+		super.disconnect();
+	}
+
+	@Override
+	public boolean setFileType(int fileType) throws IOException {
+		boolean result = super.setFileType(fileType);
+		if(result) {
+			binary = fileType == BINARY_FILE_TYPE;
+		}
+		return result;
+	}
+	
+	@Override
+	public boolean setFileType(int fileType, int formatOrByteSize) throws IOException {
+		boolean result = super.setFileType(fileType, formatOrByteSize);
+		if(result) {
+			binary = fileType == BINARY_FILE_TYPE;
+		}
+		return result;
+	}
+	
+	/**
+	 * Whether the transfers are in TYPE I, the bytes as they are, instead of text.
+	 */
+	boolean isBinary() {
+		return binary;
+	}
 
 	public void setOwnerFilter(String owner) throws IOException {
 		this.ownerFilter = owner;
@@ -112,6 +258,7 @@ public class JESClient extends FTPClient {
 	}
 
 	public List<JESJob> listJobsSummary() throws IOException {
+		defineFilter();
 		List<JESJob> jobs = new ArrayList<JESJob>();
 		String[] names = listNames();
 		if (names == null) {
@@ -125,6 +272,7 @@ public class JESClient extends FTPClient {
 	}
 
 	public List<JESJob> listJobsDetailed() throws IOException {
+		defineFilter();
 		List<JESJob> jobs = new ArrayList<JESJob>();
 		for (FTPFile file : listFiles()) {
 			JESJob job = new JESJob(this);
@@ -136,12 +284,98 @@ public class JESClient extends FTPClient {
 	}
 
 	public String readFile(String handle) throws IOException {
+		defineFilter();
 		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 		retrieveFile(handle, outputStream);
 		return outputStream.toString();
 	}
 	
+	/**
+	 * Opens the spool of the job (JOBnnnnn) or of a spool file (JOBnnnnn.n) without 
+	 * buffering it. The session can't be used for other commands until the stream is closed.
+	 *
+	 * 		Ex.:
+	 *
+	 * 			try(InputStream in = ftp.readFileStream(job.getHandle())) {
+	 * 				Files.copy(in, path);
+	 * 			}
+	 *
+	 */
+	public InputStream readFileStream(String handle) throws IOException {
+		defineFilter();
+		InputStream in = retrieveFileStream(handle);
+		if(in == null) {
+			throw new RuntimeException(getReplyString());
+		}
+		return new FilterInputStream(in) {
+			
+			private boolean closed;
+			
+			@Override
+			public void close() throws IOException {
+				if(closed) {
+					return;
+				}
+				closed = true;
+				super.close();
+				if(!completePendingCommand()) {
+					throw new IOException(getReplyString());
+				}
+			}
+		};
+	}
+	
+	public Reader readFileReader(String handle, Charset charset) throws IOException {
+		return new InputStreamReader(readFileStream(handle), charset);
+	}
+	
+	/**
+	 * Lines of the spool, read as the stream is consumed. Close the stream to end the transfer.
+	 *
+	 * 		Ex.:
+	 *
+	 * 			try(Stream<String> lines = ftp.readFileLines(job.getHandle(), StandardCharsets.ISO_8859_1)) {
+	 * 				lines.filter(l -> l.contains("IEF142I")).forEach(logger::info);
+	 * 			}
+	 *
+	 */
+	public Stream<String> readFileLines(String handle, Charset charset) throws IOException {
+		final BufferedReader reader = new BufferedReader(readFileReader(handle, charset));
+		return reader.lines().onClose(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Gives each line of the spool to the consumer, with constant memory.
+	 */
+	public void readFileLines(String handle, Charset charset, Consumer<String> consumer) throws IOException {
+		try(BufferedReader reader = new BufferedReader(readFileReader(handle, charset))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				consumer.accept(line);
+			}
+		}
+	}
+	
+	/**
+	 * Copies the spool to the stream and returns the number of bytes copied.
+	 */
+	public long readFile(String handle, OutputStream out) throws IOException {
+		try(InputStream in = readFileStream(handle)) {
+			return copy(in, out);
+		}
+	}
+	
 	public JESJob submit(InputStream jclFile) throws IOException {
+		defineFilter();
 		OutputStream out = storeFileStream("job");
 		copy(jclFile, out);
 		jclFile.close();
@@ -152,6 +386,7 @@ public class JESClient extends FTPClient {
 	}
 	
 	public JESJob submit(String sourceJCL) throws IOException {
+		defineFilter();
 		OutputStream out = storeFileStream("job");
 		out.write(sourceJCL.getBytes());
 		out.close();
@@ -179,6 +414,7 @@ public class JESClient extends FTPClient {
 	}
 
 	public JESJob execute(String datasetName) throws IOException {
+		defineFilter();
 		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 		retrieveFile(String.format("'%s'", datasetName), outputStream);
 		JESJob job = new JESJob(this);
@@ -187,16 +423,15 @@ public class JESClient extends FTPClient {
 	}
 
 	public String retrieveFile(String fileName) throws IOException {
-		site("FILETYPE=SEQ");
+		setFileTypeSEQ();
 		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 		retrieveFile(fileName, outputStream);
-		defineFilter();
 		return outputStream.toString("ASCII");
 	}
 	
 	@Override
 	public boolean storeFile(String remote, InputStream local) throws IOException {
-		site("FILETYPE=SEQ");
+		setFileTypeSEQ();
 		boolean result = false;
 		
 		try {
@@ -208,23 +443,24 @@ public class JESClient extends FTPClient {
 			throw new RuntimeException(sb.toString(), e);
 		}
 		
-		if(result) {
-			defineFilter();	
-		} else {
+		if(!result) {
 			checkAndThrowError();			
 		}
 		return result;
 	}
 	
-	private static void copy(InputStream in, OutputStream out) throws IOException {
-		byte[] buffer = new byte[1024];
+	private static long copy(InputStream in, OutputStream out) throws IOException {
+		long count = 0;
+		byte[] buffer = new byte[8192];
 		while (true) {
 			int bytesRead = in.read(buffer);
 			if (bytesRead == -1) {
 				break;
 			}
 			out.write(buffer, 0, bytesRead);
+			count += bytesRead;
 		}
+		return count;
 	}
 
 	@Override
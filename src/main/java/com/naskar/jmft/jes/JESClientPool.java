@@ -0,0 +1,112 @@
+package com.naskar.jmft.jes;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+import com.naskar.jmft.pool.ConnectionFactory;
+import com.naskar.jmft.pool.ConnectionPool;
+
+/**
+ * Pool of connected and logged in {@link JESClient} sessions, so each operation 
+ * doesn't pay the connect, login and SITE commands.
+ *
+ * The sessions are borrowed preferring one already in the FILETYPE needed, 
+ * then only the SITE commands of a change of state are sent. The JESJOBNAME 
+ * and JESOWNER filters go back to the defaults on release.
+ *
+ * 		Ex.:
+ *
+ * 			JESClientPool pool = new JESClientPool("192.168.15.101", 21, "IBMUSER", "SYS1");
+ *
+ * 			JESClient ftp = pool.borrow(JESClient.FILETYPE_JES);
+ * 			try {
+ * 				JESJob job = ftp.submit(jcl);
+ * 				...
+ * 				pool.release(ftp);
+ * 			} catch(IOException e) {
+ * 				pool.invalidate(ftp);
+ * 			}
+ *
+ */
+public class JESClientPool extends ConnectionPool<JESClient> {
+
+	public static final int DEFAULT_MIN_SIZE = 0;
+	public static final int DEFAULT_MAX_SIZE = 4;
+	public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+	public static final long DEFAULT_BORROW_TIMEOUT = 30000;
+
+	public JESClientPool(String host, int port, String username, String password) {
+		this(host, port, username, password, 
+				DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT, DEFAULT_BORROW_TIMEOUT);
+	}
+
+	/**
+	 * The idle timeout must be shorter than the one of the FTP server.
+	 */
+	public JESClientPool(final String host, final int port, final String username, final String password, 
+			int minSize, int maxSize, long idleTimeout, long borrowTimeout) {
+		this(new ConnectionFactory<JESClient>() {
+
+			@Override
+			public JESClient create() throws Exception {
+				JESClient client = new JESClient();
+				client.connect(host, port);
+				try {
+					if(!client.login(username, password)) {
+						throw new RuntimeException("Error on login: " + username);
+					}
+				} catch (Exception e) {
+					client.disconnect();
+					throw e;
+				}
+				return client;
+			}
+
+			@Override
+			public boolean isValid(JESClient client) {
+				return client.isConnected() && client.isAvailable();
+			}
+
+			@Override
+			public void destroy(JESClient client) throws Exception {
+				if(client.isConnected()) {
+					try {
+						client.logout();
+					} catch (IOException e) {
+						// closing anyway
+					}
+					client.disconnect();
+				}
+			}
+
+		}, minSize, maxSize, idleTimeout, borrowTimeout);
+	}
+
+	JESClientPool(ConnectionFactory<JESClient> factory, int minSize, int maxSize, long idleTimeout, long borrowTimeout) {
+		super(factory, minSize, maxSize, idleTimeout, borrowTimeout);
+	}
+
+	/**
+	 * A session, preferring one already in the FILETYPE ({@link JESClient#FILETYPE_JES} 
+	 * or {@link JESClient#FILETYPE_SEQ}) and, for JES, with the default filters.
+	 */
+	public JESClient borrow(final String fileType) {
+		return borrow(new Predicate<JESClient>() {
+			@Override
+			public boolean test(JESClient client) {
+				return client.isFileType(fileType);
+			}
+		});
+	}
+
+	/**
+	 * Gives the session back with the default filters, so the JESJOBNAME and 
+	 * JESOWNER of this borrower don't filter the jobs of the next one.
+	 */
+	@Override
+	public void release(JESClient client) {
+		client.clearFilter();
+		super.release(client);
+	}
+
+}
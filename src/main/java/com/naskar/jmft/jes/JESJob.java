@@ -1,11 +1,26 @@
 package com.naskar.jmft.jes;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import org.apache.commons.net.ftp.FTPFile;
 
@@ -15,6 +30,17 @@ public class JESJob {
 	public static final Integer CC_SUCCESS = 0;
 	public static final Integer CC_WARN = 4;
 	
+	// shared by the downloads of all jobs, each one bounded by its parallelism
+	private static final AtomicInteger downloads = new AtomicInteger();
+	private static final ExecutorService downloader = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "jmft-jes-download-" + downloads.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	});
+	
 	private JESClient jesClient;
 	
 	private String name;
@@ -108,6 +134,7 @@ public class JESJob {
 	
 	public boolean refreshDetails() throws IOException {
 		boolean readStatus = false;
+		jesClient.setFileTypeJES();
 		FTPFile[] files = jesClient.listFiles(this.handle);
 		if(files != null && files.length > 1) {
 			String listing = files[1].getRawListing();
@@ -120,10 +147,15 @@ public class JESJob {
 	}
 
 	public List<JESSpoolFile> getSpoolFiles() throws IOException {
+		return getSpoolFiles(this.jesClient);
+	}
+	
+	private List<JESSpoolFile> getSpoolFiles(JESClient jesClient) throws IOException {
 		if(this.spoolFiles == null) {
-			this.spoolFiles = new ArrayList<JESSpoolFile>();
+			List<JESSpoolFile> spoolFiles = new ArrayList<JESSpoolFile>();
 			
-			FTPFile[] files = this.jesClient.listFiles(this.handle);
+			jesClient.setFileTypeJES();
+			FTPFile[] files = jesClient.listFiles(this.handle);
 			for (int i = 1; i < files.length-1; i++) {
 				FTPFile file = files[i];
 				String rawListing = file.getRawListing();
@@ -143,18 +175,105 @@ public class JESJob {
 					spoolFiles.add(spoolFile);
 				}
 				
-			}	
+			}
+			this.spoolFiles = spoolFiles;
 		}
 		return spoolFiles;
 	}
 	
+	/**
+	 * Writes each spool file to the dir, one after the other, see {@link JESSpoolFile#download(Path)}.
+	 */
+	public List<Path> downloadAll(Path dir) throws IOException {
+		Files.createDirectories(dir);
+		List<Path> paths = new ArrayList<Path>();
+		for(JESSpoolFile file : getSpoolFiles()) {
+			paths.add(file.download(dir));
+		}
+		return paths;
+	}
+	
+	/**
+	 * Writes the spool files to the dir with up to parallelism sessions of the pool 
+	 * at the same time, see {@link JESSpoolFile#download(Path)}. Returns the files 
+	 * in the order of the spool files.
+	 *
+	 * On an error no other file is started, the ones in transfer are finished 
+	 * and the first error is thrown. Only a session that failed in a transfer is closed.
+	 */
+	public List<Path> downloadAll(final Path dir, final JESClientPool pool, int parallelism) throws IOException {
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("Invalid parallelism: [" + parallelism + "]");
+		}
+		Files.createDirectories(dir);
+		
+		List<JESSpoolFile> files = this.spoolFiles;
+		if(files == null) {
+			JESClient client = pool.borrow(JESClient.FILETYPE_JES);
+			try {
+				files = getSpoolFiles(client);
+				pool.release(client);
+			} catch (IOException e) {
+				pool.invalidate(client);
+				throw e;
+			}
+		}
+		
+		final List<JESSpoolFile> queue = files;
+		final Path[] paths = new Path[files.size()];
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicBoolean failed = new AtomicBoolean();
+		
+		List<Future<Void>> workers = new ArrayList<Future<Void>>();
+		for(int w = 0; w < Math.min(parallelism, files.size()); w++) {
+			workers.add(downloader.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					int i;
+					while(!failed.get() && (i = next.getAndIncrement()) < queue.size()) {
+						try {
+							paths[i] = download(queue.get(i), dir, pool);
+						} catch (IOException e) {
+							failed.set(true);
+							throw e;
+						} catch (RuntimeException e) {
+							failed.set(true);
+							throw e;
+						}
+					}
+					return null;
+				}
+			}));
+		}
+		
+		Throwable error = null;
+		for(Future<Void> worker : workers) {
+			try {
+				worker.get();
+			} catch (InterruptedException e) {
+				failed.set(true);
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			} catch (ExecutionException e) {
+				if(error == null) {
+					error = e.getCause();
+				}
+			}
+		}
+		
+		if(error instanceof IOException) {
+			throw (IOException) error;
+		}
+		if(error != null) {
+			throw new RuntimeException(error);
+		}
+		return new ArrayList<Path>(Arrays.asList(paths));
+	}
+	
 	public void waitComplete(int seconds) throws IOException, TimeoutException {
 		refreshDetails();
 		int time = 1;
-		while(getReturnCode() == null && 
-				getAbendCode() == null && 
-				getJclError() == null && 
-				getRcError() == null) {
+		while(!isComplete()) {
 			
 			time++;
 			if(time > seconds) {
@@ -167,6 +286,32 @@ public class JESJob {
 		}
 	}
 
+	/**
+	 * The job ended with a return code, an ABEND or a JCL error.
+	 */
+	public boolean isComplete() {
+		return returnCode != null || 
+				abendCode != null || 
+				jclError != null || 
+				rcError != null;
+	}
+	
+	/**
+	 * Copies the details of the same job read by another listing.
+	 */
+	void update(JESJob details) {
+		this.name = details.name;
+		this.owner = details.owner;
+		this.status = details.status;
+		this.clazz = details.clazz;
+		this.returnCode = details.returnCode;
+		this.abendCode = details.abendCode;
+		this.spoolFileCount = details.spoolFileCount;
+		this.jclError = details.jclError;
+		this.rcResult = details.rcResult;
+		this.rcError = details.rcError;
+	}
+
 	void setSpool(String spool) {
 		this.spool = spool;
 	}
@@ -211,6 +356,62 @@ public class JESJob {
 		return tmp;
 	}
 	
+	/**
+	 * Opens the whole spool of the job without buffering it, see {@link JESClient#readFileStream(String)}.
+	 */
+	public InputStream openSpool() throws IOException {
+		return this.jesClient.readFileStream(handle);
+	}
+	
+	/**
+	 * Lines of the whole spool of the job, see {@link JESClient#readFileLines(String, Charset)}.
+	 */
+	public Stream<String> spoolLines(Charset charset) throws IOException {
+		return this.jesClient.readFileLines(handle, charset);
+	}
+	
+	/**
+	 * Copies the whole spool of the job to the stream and returns the number of bytes copied.
+	 */
+	public long readSpool(OutputStream out) throws IOException {
+		return this.jesClient.readFile(handle, out);
+	}
+	
+	/**
+	 * Downloads the file with a session of the pool, deleting it when the transfer
+	 * fails or is incomplete.
+	 */
+	private static Path download(JESSpoolFile file, Path dir, JESClientPool pool) throws IOException {
+		Path path = file.path(dir);
+		boolean done = false;
+		try {
+			long count = 0;
+			boolean binary = false;
+			try(OutputStream out = Files.newOutputStream(path)) {
+				JESClient client = pool.borrow(JESClient.FILETYPE_JES);
+				try {
+					binary = client.isBinary();
+					count = file.read(out, client);
+				} catch (IOException e) {
+					// the transfer may be half done on the session
+					pool.invalidate(client);
+					throw e;
+				} catch (RuntimeException e) {
+					pool.invalidate(client);
+					throw e;
+				}
+				pool.release(client);
+			}
+			file.check(count, binary);
+			done = true;
+			return path;
+		} finally {
+			if(!done) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+	
 	private static boolean isEmpty(String tmp) {
 		return tmp == null || tmp.trim().isEmpty();
 	}
@@ -221,6 +422,7 @@ public class JESJob {
 	}
 
 	public void purge() throws IOException {
+		this.jesClient.setFileTypeJES();
 		this.jesClient.deleteFile(this.handle);
 	}
 	
@@ -228,6 +430,13 @@ public class JESJob {
 		return jesClient;
 	}
 	
+	/**
+	 * Binds the job to another session, like one borrowed from a {@link JESClientPool}.
+	 */
+	public void setClientJES(JESClient jesClient) {
+		this.jesClient = jesClient;
+	}
+	
 	public String getName() {
 		return name;
 	}
@@ -0,0 +1,317 @@
+package com.naskar.jmft.jes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Waits for many jobs with one LIST of the jobs per interval, instead of one 
+ * per job and second like {@link JESJob#waitComplete(int)}.
+ *
+ * The future of a job is completed with its details when it ends with a return code,
+ * an ABEND or a JCL error. The interval doubles, up to the max, while no job ends
+ * and goes back to the min when one ends or is watched.
+ *
+ * A job missing from the listing, like one out of the JESJOBNAME and JESOWNER filters
+ * of the client or cut by the limit of the LIST, is looked up by its handle. One not found
+ * in {@link #MAX_MISSING} polls in a row, like a purged job, completes with an IOException.
+ *
+ * 		Ex.:
+ *
+ * 			JESJobWatcher watcher = new JESJobWatcher(pool);
+ *
+ * 			watcher.watch(ftp.submit(jcl), 120000)
+ * 				.thenAccept(job -> logger.info(job.toString()));
+ *
+ */
+public class JESJobWatcher implements Closeable {
+
+	private static final Logger logger = Logger.getLogger(JESJobWatcher.class.getName());
+
+	public static final long DEFAULT_MIN_INTERVAL = 1000;
+	public static final long DEFAULT_MAX_INTERVAL = 15000;
+	public static final int MAX_MISSING = 3;
+
+	private final Callable<List<JESJob>> lister;
+	private final Finder finder;
+	private final long minInterval;
+	private final long maxInterval;
+	private final ConcurrentMap<String, Watch> watched = new ConcurrentHashMap<String, Watch>();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "jmft-jes-watcher");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private long interval;
+	private boolean scheduled;
+	private boolean closed;
+
+	private static class Watch {
+
+		final JESJob job;
+		final long deadline;
+		final CompletableFuture<JESJob> future = new CompletableFuture<JESJob>();
+		int missing;
+
+		Watch(JESJob job, long deadline) {
+			this.job = job;
+			this.deadline = deadline;
+		}
+
+	}
+
+	/**
+	 * Details of one job by its handle, null when not found.
+	 */
+	interface Finder {
+
+		JESJob find(String handle) throws Exception;
+
+	}
+
+	private interface Session<T> {
+
+		T call(JESClient client) throws IOException;
+
+	}
+
+	/**
+	 * Lists the jobs with a client used only by the watcher.
+	 */
+	public JESJobWatcher(final JESClient client) {
+		this(new Callable<List<JESJob>>() {
+			@Override
+			public List<JESJob> call() throws Exception {
+				return client.listJobsDetailed();
+			}
+		}, new Finder() {
+			@Override
+			public JESJob find(String handle) throws Exception {
+				return details(client, handle);
+			}
+		}, DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL);
+	}
+
+	/**
+	 * Lists the jobs with a session of the pool.
+	 */
+	public JESJobWatcher(JESClientPool pool) {
+		this(pool, DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL);
+	}
+
+	/**
+	 * Intervals in milliseconds.
+	 */
+	public JESJobWatcher(final JESClientPool pool, long minInterval, long maxInterval) {
+		this(new Callable<List<JESJob>>() {
+			@Override
+			public List<JESJob> call() throws Exception {
+				return session(pool, new Session<List<JESJob>>() {
+					@Override
+					public List<JESJob> call(JESClient client) throws IOException {
+						return client.listJobsDetailed();
+					}
+				});
+			}
+		}, new Finder() {
+			@Override
+			public JESJob find(final String handle) throws Exception {
+				return session(pool, new Session<JESJob>() {
+					@Override
+					public JESJob call(JESClient client) throws IOException {
+						return details(client, handle);
+					}
+				});
+			}
+		}, minInterval, maxInterval);
+	}
+
+	JESJobWatcher(Callable<List<JESJob>> lister, Finder finder, long minInterval, long maxInterval) {
+		if(minInterval < 1 || maxInterval < minInterval) {
+			throw new IllegalArgumentException("Invalid interval: [" + minInterval + "] : [" + maxInterval + "]");
+		}
+		this.lister = lister;
+		this.finder = finder;
+		this.minInterval = minInterval;
+		this.maxInterval = maxInterval;
+		this.interval = minInterval;
+	}
+
+	private static <T> T session(JESClientPool pool, Session<T> session) throws IOException {
+		JESClient client = pool.borrow(JESClient.FILETYPE_JES);
+		try {
+			T result = session.call(client);
+			pool.release(client);
+			return result;
+		} catch (IOException e) {
+			pool.invalidate(client);
+			throw e;
+		} catch (RuntimeException e) {
+			pool.release(client);
+			throw e;
+		}
+	}
+
+	private static JESJob details(JESClient client, String handle) throws IOException {
+		JESJob job = new JESJob(client, handle);
+		return job.refreshDetails() ? job : null;
+	}
+
+	public CompletableFuture<JESJob> watch(JESJob job) {
+		return watch(job, 0);
+	}
+
+	/**
+	 * Completes with a {@link TimeoutException} when the job doesn't end in the timeout (ms), 0 for none.
+	 */
+	public CompletableFuture<JESJob> watch(JESJob job, long timeout) {
+		Watch w = new Watch(job, timeout > 0 ? System.currentTimeMillis() + timeout : 0);
+		Watch previous = watched.putIfAbsent(job.getHandle(), w);
+		if(previous != null) {
+			return previous.future;
+		}
+
+		synchronized (this) {
+			if(closed) {
+				watched.remove(job.getHandle());
+				w.future.cancel(false);
+				return w.future;
+			}
+			interval = minInterval;
+			if(!scheduled) {
+				scheduled = true;
+				schedule(minInterval);
+			}
+		}
+		return w.future;
+	}
+
+	/**
+	 * Jobs watched and not ended.
+	 */
+	public int getWatched() {
+		return watched.size();
+	}
+
+	private void schedule(long delay) {
+		scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				poll();
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	void poll() {
+		boolean ended = false;
+
+		List<JESJob> jobs = null;
+		try {
+			jobs = lister.call();
+		} catch (Exception e) {
+			logger.log(Level.WARNING, "ERROR on list jobs.", e);
+		}
+
+		if(jobs != null) {
+			Set<String> listed = new HashSet<String>();
+			for(JESJob job : jobs) {
+				listed.add(job.getHandle());
+				Watch w = watched.get(job.getHandle());
+				if(w != null) {
+					w.missing = 0;
+					ended |= complete(w, job);
+				}
+			}
+
+			for(Watch w : watched.values()) {
+				if(!listed.contains(w.job.getHandle())) {
+					ended |= lookup(w);
+				}
+			}
+		}
+
+		long now = System.currentTimeMillis();
+		Iterator<Watch> it = watched.values().iterator();
+		while(it.hasNext()) {
+			Watch w = it.next();
+			if(w.deadline > 0 && now >= w.deadline) {
+				it.remove();
+				w.future.completeExceptionally(new TimeoutException("Job not complete: " + w.job.getHandle()));
+			}
+		}
+
+		synchronized (this) {
+			if(closed || watched.isEmpty()) {
+				scheduled = false;
+				return;
+			}
+			interval = ended ? minInterval : Math.min(interval * 2, maxInterval);
+			schedule(interval);
+		}
+	}
+
+	private boolean complete(Watch w, JESJob job) {
+		if(job.isComplete() && watched.remove(w.job.getHandle(), w)) {
+			w.job.update(job);
+			w.future.complete(w.job);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Looks up a job missing from the listing, giving up after {@link #MAX_MISSING} polls.
+	 */
+	private boolean lookup(Watch w) {
+		JESJob job = null;
+		try {
+			job = finder.find(w.job.getHandle());
+		} catch (Exception e) {
+			logger.log(Level.WARNING, "ERROR on list job: " + w.job.getHandle(), e);
+		}
+
+		if(job != null) {
+			w.missing = 0;
+			return complete(w, job);
+		}
+
+		if(++w.missing >= MAX_MISSING && watched.remove(w.job.getHandle(), w)) {
+			w.future.completeExceptionally(new IOException("Job not found: " + w.job.getHandle()));
+		}
+		return false;
+	}
+
+	/**
+	 * Stops the watcher and cancels the futures of the jobs not ended.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		scheduler.shutdownNow();
+		for(Watch w : watched.values()) {
+			w.future.cancel(false);
+		}
+		watched.clear();
+	}
+
+}
@@ -2,6 +2,12 @@ package com.naskar.jmft.jes;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
 
 public class JESSpoolFile {
 
@@ -20,11 +26,86 @@ public class JESSpoolFile {
 
 	public String read() throws IOException {
 		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		this.jobJES.getClientJES().setFileTypeJES();
 		this.jobJES.getClientJES().retrieveFile(String.format("%s.%d", this.jobJES.getHandle(), this.handle),
 				outputStream);
 		return outputStream.toString();
 	}
 
+	/**
+	 * Opens the spool file without buffering it, see {@link JESClient#readFileStream(String)}.
+	 */
+	public InputStream openStream() throws IOException {
+		return this.jobJES.getClientJES().readFileStream(name());
+	}
+
+	/**
+	 * Lines of the spool file, see {@link JESClient#readFileLines(String, Charset)}.
+	 */
+	public Stream<String> lines(Charset charset) throws IOException {
+		return this.jobJES.getClientJES().readFileLines(name(), charset);
+	}
+
+	/**
+	 * Copies the spool file to the stream and returns the number of bytes copied.
+	 */
+	public long read(OutputStream out) throws IOException {
+		return this.jobJES.getClientJES().readFile(name(), out);
+	}
+
+	/**
+	 * Writes the spool file to dir/JOBnnnnn.n.DDNAME.txt and returns the file,
+	 * deleted when the transfer fails or is incomplete, see {@link #check(long, boolean)}.
+	 */
+	public Path download(Path dir) throws IOException {
+		return download(dir, this.jobJES.getClientJES());
+	}
+
+	Path download(Path dir, JESClient client) throws IOException {
+		Path file = path(dir);
+		boolean done = false;
+		try {
+			long count = 0;
+			try(OutputStream out = Files.newOutputStream(file)) {
+				count = read(out, client);
+			}
+			check(count, client.isBinary());
+			done = true;
+			return file;
+		} finally {
+			if(!done) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	Path path(Path dir) {
+		return dir.resolve(String.format("%s.%d.%s.txt", this.jobJES.getHandle(), this.handle, this.nameDD));
+	}
+
+	long read(OutputStream out, JESClient client) throws IOException {
+		return client.readFile(name(), out);
+	}
+
+	/**
+	 * Fails when the transfer is short of the byte count of the listing. The count 
+	 * is exact only for a binary transfer: a text one drops the trailing blanks of 
+	 * the records, so there it is only an approximate lower bound and just an empty 
+	 * transfer of a file with bytes fails.
+	 */
+	void check(long count, boolean binary) throws IOException {
+		if(byteCount == null || byteCount == 0) {
+			return;
+		}
+		if(binary ? count < byteCount : count == 0) {
+			throw new IOException("Spool file incomplete: [" + name() + "] : [" + count + "] : [" + byteCount + "]");
+		}
+	}
+
+	private String name() {
+		return String.format("%s.%d", this.jobJES.getHandle(), this.handle);
+	}
+
 	void setHandle(Integer handle) {
 		this.handle = handle;
 	}
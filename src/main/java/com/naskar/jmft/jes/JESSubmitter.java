@@ -0,0 +1,219 @@
+package com.naskar.jmft.jes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Submits jobs with up to parallelism sessions of a {@link JESClientPool} at the
+ * same time, instead of one after the other on one FTP connection.
+ *
+ * The jobs are given unbound from the session that submitted them, since it
+ * goes back to the pool: bind one with {@link JESJob#setClientJES(JESClient)} 
+ * before refreshDetails, getSpoolFiles or purge.
+ *
+ * 		Ex.:
+ *
+ * 			JESSubmitter submitter = new JESSubmitter(pool, 8);
+ *
+ * 			for(String jcl : jcls) {
+ * 				submitter.submitAndWait(jcl, 600000)
+ * 					.thenAccept(job -> logger.info(job.getSpool()));
+ * 			}
+ *
+ */
+public class JESSubmitter implements Closeable {
+
+	private final JESClientPool pool;
+	private final JESJobWatcher watcher;
+	private final ExecutorService executor;
+
+	public JESSubmitter(JESClientPool pool, int parallelism) {
+		this(pool, parallelism, new JESJobWatcher(pool));
+	}
+
+	/**
+	 * Waits the jobs with the watcher, closed with the submitter.
+	 */
+	public JESSubmitter(JESClientPool pool, int parallelism, JESJobWatcher watcher) {
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("Invalid parallelism: [" + parallelism + "]");
+		}
+		this.pool = pool;
+		this.watcher = watcher;
+
+		final AtomicInteger count = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "jmft-jes-submit-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	public CompletableFuture<JESJob> submit(final String jcl) {
+		return async(new Supplier<JESJob>() {
+			@Override
+			public JESJob get() {
+				JESClient client = borrow();
+				try {
+					return unbind(client.submit(jcl));
+				} catch (IOException e) {
+					pool.invalidate(client);
+					client = null;
+					throw new RuntimeException("Error on submit job.", e);
+				} finally {
+					if(client != null) {
+						pool.release(client);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reads the JCL before returning, so the stream can be closed by the caller.
+	 */
+	public CompletableFuture<JESJob> submit(InputStream jcl) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int n;
+		while((n = jcl.read(buffer)) != -1) {
+			out.write(buffer, 0, n);
+		}
+		final byte[] bytes = out.toByteArray();
+
+		return async(new Supplier<JESJob>() {
+			@Override
+			public JESJob get() {
+				JESClient client = borrow();
+				try {
+					return unbind(client.submit(new ByteArrayInputStream(bytes)));
+				} catch (IOException e) {
+					pool.invalidate(client);
+					client = null;
+					throw new RuntimeException("Error on submit job.", e);
+				} finally {
+					if(client != null) {
+						pool.release(client);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Submits the job, waits for it to end and reads its spool, see {@link JESJob#getSpool()}.
+	 * Completes with a TimeoutException when it doesn't end in the timeout (ms), 0 for none.
+	 */
+	public CompletableFuture<JESJob> submitAndWait(String jcl, final long timeout) {
+		return submit(jcl)
+			.thenCompose(new Function<JESJob, CompletionStage<JESJob>>() {
+				@Override
+				public CompletionStage<JESJob> apply(JESJob job) {
+					return watcher.watch(job, timeout);
+				}
+			})
+			.thenCompose(new Function<JESJob, CompletionStage<JESJob>>() {
+				@Override
+				public CompletionStage<JESJob> apply(final JESJob job) {
+					return async(new Supplier<JESJob>() {
+						@Override
+						public JESJob get() {
+							return readSpool(job);
+						}
+					});
+				}
+			});
+	}
+
+	/**
+	 * Runs the supplier in the executor, like supplyAsync, but with a task that
+	 * close can find in the queue and cancel.
+	 */
+	private <T> CompletableFuture<T> async(Supplier<T> supplier) {
+		Task<T> task = new Task<T>(supplier);
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.future.cancel(false);
+		}
+		return task.future;
+	}
+
+	private static class Task<T> implements Runnable {
+
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		final Supplier<T> supplier;
+
+		Task(Supplier<T> supplier) {
+			this.supplier = supplier;
+		}
+
+		@Override
+		public void run() {
+			try {
+				future.complete(supplier.get());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		}
+
+	}
+
+	private JESJob readSpool(JESJob job) {
+		JESClient client = borrow();
+		try {
+			job.setSpool(client.readFile(job.getHandle()));
+			return job;
+		} catch (IOException e) {
+			pool.invalidate(client);
+			client = null;
+			throw new RuntimeException("Error on read spool: " + job.getHandle(), e);
+		} finally {
+			if(client != null) {
+				pool.release(client);
+			}
+		}
+	}
+
+	private JESClient borrow() {
+		return pool.borrow(JESClient.FILETYPE_JES);
+	}
+
+	private static JESJob unbind(JESJob job) {
+		if(job == null) {
+			throw new RuntimeException("Error on submit job: no job id in the reply.");
+		}
+		job.setClientJES(null);
+		return job;
+	}
+
+	/**
+	 * Stops the submissions not started, the watcher and the waits. The futures 
+	 * of the submissions and spool reads not started end with a CancellationException.
+	 */
+	@Override
+	public void close() {
+		for(Runnable r : executor.shutdownNow()) {
+			if(r instanceof Task) {
+				((Task<?>) r).future.cancel(false);
+			}
+		}
+		watcher.close();
+	}
+
+}
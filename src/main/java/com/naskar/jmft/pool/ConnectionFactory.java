@@ -0,0 +1,17 @@
+package com.naskar.jmft.pool;
+
+/**
+ * Creates, checks and closes the connections of a {@link ConnectionPool}.
+ */
+public interface ConnectionFactory<T> {
+
+	T create() throws Exception;
+
+	/**
+	 * Health check of an idle connection before it is borrowed again.
+	 */
+	boolean isValid(T connection);
+
+	void destroy(T connection) throws Exception;
+
+}
@@ -0,0 +1,353 @@
+package com.naskar.jmft.pool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of connections:
+ *
+ * 		minSize          connections opened on the first borrow and kept open by the eviction
+ * 		maxSize          connections open at the same time, borrowed or idle
+ * 		idleTimeout      idle time after which a connection is closed, 0 keeps them open
+ * 		borrowTimeout    wait for a connection when maxSize are borrowed
+ *
+ * The last connection released is the first borrowed, so the ones left idle 
+ * are closed by the eviction. The health check runs outside the lock of the pool.
+ * A borrowed connection must be given back with {@link #release(Object)} or, 
+ * when broken, {@link #invalidate(Object)}.
+ *
+ * 		Ex.:
+ *
+ * 			T c = pool.borrow();
+ * 			try {
+ * 				...
+ * 				pool.release(c);
+ * 			} catch(IOException e) {
+ * 				pool.invalidate(c);
+ * 			}
+ *
+ */
+public class ConnectionPool<T> {
+
+	private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+
+	private static final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "jmft-pool-evictor");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private final ConnectionFactory<T> factory;
+	private final int minSize;
+	private final int maxSize;
+	private final long idleTimeout;
+	private final long borrowTimeout;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Deque<Idle<T>> idle = new ArrayDeque<Idle<T>>();
+	private final ScheduledFuture<?> eviction;
+
+	private int size;
+	private boolean closed;
+	private volatile boolean filled;
+
+	private static class Idle<T> {
+
+		final T connection;
+		final long since;
+
+		Idle(T connection, long since) {
+			this.connection = connection;
+			this.since = since;
+		}
+
+	}
+
+	/**
+	 * Timeouts in milliseconds.
+	 */
+	public ConnectionPool(ConnectionFactory<T> factory, int minSize, int maxSize, long idleTimeout, long borrowTimeout) {
+		if(maxSize < 1 || minSize < 0 || minSize > maxSize) {
+			throw new IllegalArgumentException("Invalid pool size: [" + minSize + "] : [" + maxSize + "]");
+		}
+		this.factory = factory;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+		this.borrowTimeout = TimeUnit.MILLISECONDS.toNanos(borrowTimeout);
+
+		if(idleTimeout > 0) {
+			long period = Math.max(idleTimeout / 2, 100);
+			this.eviction = evictor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					evict();
+				}
+			}, period, period, TimeUnit.MILLISECONDS);
+		} else {
+			this.eviction = null;
+		}
+	}
+
+	/**
+	 * An idle connection that passes the health check or a new one, 
+	 * waiting up to the borrow timeout when the pool is full.
+	 */
+	public T borrow() {
+		return borrow(null);
+	}
+
+	/**
+	 * Like {@link #borrow()}, taking the last idle connection released that is preferred, 
+	 * like a session already in the mode of the next command, or else the last released.
+	 */
+	public T borrow(Predicate<? super T> preferred) {
+		if(!filled) {
+			filled = true;
+			fill();
+		}
+
+		long deadline = System.nanoTime() + borrowTimeout;
+		while(true) {
+			Idle<T> i = reserve(preferred, deadline);
+			if(i == null) {
+				return create();
+			}
+			if(factory.isValid(i.connection)) {
+				return i.connection;
+			}
+			invalidate(i.connection);
+		}
+	}
+
+	/**
+	 * Takes an idle connection or, returning null, a place for a new one.
+	 */
+	private Idle<T> reserve(Predicate<? super T> preferred, long deadline) {
+		lock.lock();
+		try {
+			while(true) {
+				if(closed) {
+					throw new PoolException("Pool closed.");
+				}
+
+				Idle<T> i = take(preferred);
+				if(i != null) {
+					return i;
+				}
+
+				if(size < maxSize) {
+					size++;
+					return null;
+				}
+
+				long remaining = deadline - System.nanoTime();
+				if(remaining <= 0) {
+					throw new PoolException("Timeout waiting for a connection: [" 
+							+ TimeUnit.NANOSECONDS.toMillis(borrowTimeout) + "ms] : [" + maxSize + "]");
+				}
+				available.awaitNanos(remaining);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PoolException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private T create() {
+		try {
+			return factory.create();
+		} catch (Exception e) {
+			discard();
+			throw e instanceof RuntimeException ? (RuntimeException) e : new PoolException(e);
+		}
+	}
+
+	/**
+	 * Opens idle connections up to the minimum size, stopping on the first error.
+	 */
+	private void fill() {
+		while(true) {
+			lock.lock();
+			try {
+				if(closed || size >= minSize) {
+					return;
+				}
+				size++;
+			} finally {
+				lock.unlock();
+			}
+
+			try {
+				release(factory.create());
+			} catch (Exception e) {
+				discard();
+				logger.log(Level.WARNING, e.getMessage(), e);
+				return;
+			}
+		}
+	}
+
+	private Idle<T> take(Predicate<? super T> preferred) {
+		if(preferred != null) {
+			Iterator<Idle<T>> it = idle.iterator();
+			while(it.hasNext()) {
+				Idle<T> i = it.next();
+				if(preferred.test(i.connection)) {
+					it.remove();
+					return i;
+				}
+			}
+		}
+		return idle.pollFirst();
+	}
+
+	/**
+	 * Gives back a borrowed connection to be reused.
+	 */
+	public void release(T connection) {
+		lock.lock();
+		try {
+			if(!closed) {
+				idle.addFirst(new Idle<T>(connection, System.nanoTime()));
+				available.signal();
+				return;
+			}
+			size--;
+		} finally {
+			lock.unlock();
+		}
+		destroy(connection);
+	}
+
+	/**
+	 * Closes a borrowed connection that must not be reused, like after an I/O error.
+	 */
+	public void invalidate(T connection) {
+		discard();
+		destroy(connection);
+	}
+
+	/**
+	 * Closes the connections idle for longer than the idle timeout, keeping the minimum size.
+	 * Run by the evictor, nothing to do when the idle timeout is 0.
+	 */
+	void evict() {
+		if(idleTimeout <= 0) {
+			return;
+		}
+
+		List<T> expired = new ArrayList<T>();
+		long now = System.nanoTime();
+
+		lock.lock();
+		try {
+			Iterator<Idle<T>> it = idle.descendingIterator();
+			while(it.hasNext() && size > minSize) {
+				Idle<T> i = it.next();
+				if(now - i.since < idleTimeout) {
+					break;
+				}
+				it.remove();
+				size--;
+				expired.add(i.connection);
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		for(T c : expired) {
+			destroy(c);
+		}
+	}
+
+	/**
+	 * Closes the idle connections, the borrowed ones are closed when released.
+	 */
+	public void close() {
+		List<T> connections = new ArrayList<T>();
+
+		lock.lock();
+		try {
+			closed = true;
+			for(Idle<T> i : idle) {
+				connections.add(i.connection);
+			}
+			size -= idle.size();
+			idle.clear();
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+
+		if(eviction != null) {
+			eviction.cancel(false);
+		}
+		for(T c : connections) {
+			destroy(c);
+		}
+	}
+
+	/**
+	 * Connections open, borrowed or idle.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getSize() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getIdle() {
+		lock.lock();
+		try {
+			return idle.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void discard() {
+		lock.lock();
+		try {
+			size--;
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void destroy(T connection) {
+		try {
+			factory.destroy(connection);
+		} catch (Exception e) {
+			logger.log(Level.WARNING, e.getMessage(), e);
+		}
+	}
+
+}
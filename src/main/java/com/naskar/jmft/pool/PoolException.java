@@ -0,0 +1,23 @@
+package com.naskar.jmft.pool;
+
+/**
+ * A connection couldn't be borrowed: the pool is closed, the wait timed out
+ * or the new connection failed.
+ */
+public class PoolException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public PoolException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public PoolException(Exception cause) {
+		super(cause);
+	}
+
+	public PoolException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,199 @@
+package com.naskar.jmft.cics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CicsBatchTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger peak = new AtomicInteger();
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Replies the COMMAREA after a delay of its first byte in ms, failing when it is 0.
+	 */
+	private Function<byte[], CompletableFuture<byte[]>> program() {
+		return commarea -> CompletableFuture.supplyAsync(() -> {
+			peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(commarea[0]);
+			} catch (InterruptedException e) {
+				throw new JavaCicsException(e);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+			if(commarea[0] == 0) {
+				throw new JavaCicsException("Error: RC [-3]");
+			}
+			return commarea;
+		}, executor);
+	}
+
+	private static List<byte[]> commareas(int... delays) {
+		List<byte[]> commareas = new ArrayList<byte[]>();
+		for(int i = 0; i < delays.length; i++) {
+			commareas.add(new byte[] { (byte) delays[i], (byte) i });
+		}
+		return commareas;
+	}
+
+	@Test
+	public void testOrdered() {
+		// Arrange
+		CicsBatch target = new CicsBatch(program(), 3);
+
+		// Act
+		List<CicsResult> results = target.run(commareas(20, 1, 0, 5, 1, 15, 1, 2, 1, 1));
+
+		// Assert
+		Assert.assertEquals(10, results.size());
+		for(int i = 0; i < results.size(); i++) {
+			CicsResult result = results.get(i);
+			Assert.assertEquals(i, result.getIndex());
+			if(i == 2) {
+				Assert.assertFalse(result.isSuccess());
+				Assert.assertEquals("Error: RC [-3]", result.getError().getMessage());
+			} else {
+				Assert.assertTrue(result.isSuccess());
+				Assert.assertEquals(i, result.getCommarea()[1]);
+			}
+		}
+		Assert.assertTrue(peak.get() <= 3);
+	}
+
+	@Test
+	public void testUnordered() {
+		// Arrange
+		CicsBatch target = new CicsBatch(program(), 4);
+		final List<Long> indexes = new ArrayList<Long>();
+
+		// Act
+		target.forEach(commareas(100, 1, 1, 1, 1, 1).iterator(), result -> indexes.add(result.getIndex()));
+
+		// Assert
+		Assert.assertEquals(6, indexes.size());
+		Assert.assertEquals(Long.valueOf(0), indexes.get(indexes.size() - 1));
+		Assert.assertTrue(peak.get() <= 4);
+	}
+
+	@Test
+	public void testConsumerError() {
+		// Arrange
+		CicsBatch target = new CicsBatch(program(), 3);
+		final List<Long> indexes = new ArrayList<Long>();
+
+		// Act
+		RuntimeException error = null;
+		try {
+			target.forEachOrdered(commareas(20, 1, 1, 5, 1, 1, 1, 1).iterator(), result -> {
+				indexes.add(result.getIndex());
+				if(result.getIndex() == 1) {
+					throw new IllegalStateException("Consumer error");
+				}
+			});
+		} catch (IllegalStateException e) {
+			error = e;
+		}
+
+		// Assert
+		Assert.assertNotNull(error);
+		Assert.assertEquals("Consumer error", error.getMessage());
+		Assert.assertTrue(indexes.size() >= 3);
+		for(int i = 0; i < indexes.size(); i++) {
+			Assert.assertEquals(Long.valueOf(i), indexes.get(i));
+		}
+		Assert.assertEquals(0, inFlight.get());
+	}
+
+	@Test
+	public void testCheckedConsumerError() {
+		// Arrange
+		CicsBatch target = new CicsBatch(program(), 2);
+
+		// Act
+		JavaCicsException error = null;
+		try {
+			target.forEach(commareas(1, 1, 1).iterator(), result -> sneakyThrow(new Exception("Checked error")));
+		} catch (JavaCicsException e) {
+			error = e;
+		}
+
+		// Assert
+		Assert.assertNotNull(error);
+		Assert.assertEquals("Checked error", error.getCause().getMessage());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E extends Throwable> void sneakyThrow(Throwable e) throws E {
+		throw (E) e;
+	}
+
+	@Test
+	public void testCommareasError() {
+		// Arrange
+		CicsBatch target = new CicsBatch(program(), 3);
+		final Iterator<byte[]> items = commareas(20, 20, 20).iterator();
+		Iterator<byte[]> commareas = new Iterator<byte[]>() {
+
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+
+			@Override
+			public byte[] next() {
+				if(!items.hasNext()) {
+					throw new IllegalStateException("Read error");
+				}
+				return items.next();
+			}
+
+		};
+		final List<Long> indexes = new ArrayList<Long>();
+
+		// Act
+		IllegalStateException error = null;
+		try {
+			target.forEach(commareas, result -> indexes.add(result.getIndex()));
+		} catch (IllegalStateException e) {
+			error = e;
+		}
+
+		// Assert
+		Assert.assertEquals("Read error", error.getMessage());
+		Assert.assertEquals(3, indexes.size());
+		Assert.assertEquals(0, inFlight.get());
+	}
+
+	@Test
+	public void testGatewayLimit() {
+		// Arrange
+		Configuration config = new Configuration("tcp://localhost", 2006, "CICS1", "USER1", "PASS1");
+		JavaGatewayPool pool = new JavaGatewayPool(config, 0, 2, 0, 100);
+		Cics cics = new Cics(config, "PRG1", "PROG1", pool);
+
+		// Act
+		CicsBatch target = new CicsBatch(cics, 32);
+
+		// Assert
+		Assert.assertEquals(2, target.getInFlight());
+		pool.close();
+	}
+
+}
@@ -0,0 +1,195 @@
+package com.naskar.jmft.cics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CicsExecutorTest {
+
+	@Test
+	public void testMaxInFlight() throws Exception {
+		// Arrange
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger peak = new AtomicInteger();
+		List<CompletableFuture<Integer>> futures = new ArrayList<CompletableFuture<Integer>>();
+
+		try(CicsExecutor target = new CicsExecutor(10)) {
+			target.setMaxInFlight("CICS1", 3);
+
+			// Act
+			for(int i = 0; i < 20; i++) {
+				final int n = i;
+				futures.add(target.submit("CICS1", new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+						Thread.sleep(10);
+						inFlight.decrementAndGet();
+						return n;
+					}
+				}));
+			}
+
+			// Assert
+			for(int i = 0; i < 20; i++) {
+				Assert.assertEquals(Integer.valueOf(i), futures.get(i).get());
+			}
+			Assert.assertTrue(peak.get() <= 3);
+			Assert.assertEquals(0, target.getInFlight("CICS1"));
+		}
+	}
+
+	@Test
+	public void testError() throws Exception {
+		// Arrange
+		try(CicsExecutor target = new CicsExecutor(1)) {
+
+			// Act
+			CompletableFuture<Void> future = target.submit("CICS1", new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					throw new JavaCicsException("Error: RC [-3]");
+				}
+			});
+
+			// Assert
+			try {
+				future.join();
+				Assert.fail();
+			} catch(Exception e) {
+				Assert.assertTrue(e.getCause() instanceof JavaCicsException);
+			}
+		}
+	}
+
+	@Test
+	public void testSubmitReply() throws Exception {
+		// Arrange
+		final byte[] reply = { 0x01, 0x02, 0x03 };
+		Configuration config = new Configuration("tcp://localhost", 2006, "CICS1", "USER1", "PASS1");
+		Cics cics = new Cics(config, "PRG1", "PROG1", new CicsTransport() {
+
+			@Override
+			public byte[] call(Configuration config, String transaction, String program,
+					byte[] commarea, int dataLength, int replyLength) {
+				return reply;
+			}
+
+			@Override
+			public CompletableFuture<byte[]> callAsync(Configuration config, String transaction, String program,
+					byte[] commarea, int dataLength, int replyLength) {
+				return CompletableFuture.completedFuture(reply);
+			}
+
+		});
+
+		try(CicsExecutor target = new CicsExecutor(1)) {
+
+			// Act
+			byte[] result = target.submit(cics, new byte[3]).get();
+
+			// Assert
+			Assert.assertSame(reply, result);
+		}
+	}
+
+	private static Callable<Void> await(final CountDownLatch latch) {
+		return new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				latch.await();
+				return null;
+			}
+		};
+	}
+
+	@Test
+	public void testWaitingWithoutThreads() throws Exception {
+		// Arrange
+		final AtomicInteger threads = new AtomicInteger();
+		ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				threads.incrementAndGet();
+				Thread t = new Thread(r);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		CountDownLatch latch = new CountDownLatch(1);
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+
+		try(CicsExecutor target = new CicsExecutor(executor, 2)) {
+
+			// Act
+			for(int i = 0; i < 20; i++) {
+				futures.add(target.submit("CICS1", await(latch)));
+			}
+			Thread.sleep(50);
+
+			// Assert
+			Assert.assertEquals(2, threads.get());
+			Assert.assertEquals(2, target.getInFlight("CICS1"));
+
+			latch.countDown();
+			for(CompletableFuture<Void> future : futures) {
+				future.get(5, TimeUnit.SECONDS);
+			}
+			Assert.assertEquals(0, target.getInFlight("CICS1"));
+		}
+	}
+
+	@Test
+	public void testResize() throws Exception {
+		// Arrange
+		CountDownLatch first = new CountDownLatch(1);
+		CountDownLatch second = new CountDownLatch(1);
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+
+		try(CicsExecutor target = new CicsExecutor(1)) {
+			for(int i = 0; i < 3; i++) {
+				futures.add(target.submit("CICS1", await(first)));
+			}
+			Thread.sleep(50);
+			Assert.assertEquals(1, target.getInFlight("CICS1"));
+
+			// Act: the waiting calls start with the new limit
+			target.setMaxInFlight("CICS1", 3);
+			Thread.sleep(50);
+			int grown = target.getInFlight("CICS1");
+
+			// Act: the calls in flight count against a lower limit
+			target.setMaxInFlight("CICS1", 1);
+			first.countDown();
+			for(CompletableFuture<Void> future : futures) {
+				future.get(5, TimeUnit.SECONDS);
+			}
+			futures.clear();
+			for(int i = 0; i < 2; i++) {
+				futures.add(target.submit("CICS1", await(second)));
+			}
+			Thread.sleep(50);
+
+			// Assert
+			Assert.assertEquals(3, grown);
+			Assert.assertEquals(1, target.getInFlight("CICS1"));
+
+			second.countDown();
+			for(CompletableFuture<Void> future : futures) {
+				future.get(5, TimeUnit.SECONDS);
+			}
+			Assert.assertEquals(0, target.getInFlight("CICS1"));
+		}
+	}
+
+}
@@ -0,0 +1,201 @@
+package com.naskar.jmft.cics;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.ctg.client.ECIRequest;
+import com.ibm.ctg.client.GatewayRequest;
+import com.ibm.ctg.client.JavaGateway;
+import com.naskar.jmft.pool.ConnectionFactory;
+
+public class CicsLuwTest {
+
+	private static final int TOKEN = 42;
+
+	// the connection is lost instead of a reply
+	private static final int LOST = Integer.MIN_VALUE;
+
+	private final Configuration config = new Configuration("tcp://localhost", 2006, "CICS1", "USER1", "PASS1");
+
+	/**
+	 * Replies the return codes in order and records the Extend_Mode of each request.
+	 */
+	public static class Gateway extends JavaGateway {
+
+		private final Deque<Integer> rcs;
+		private final List<Integer> modes = new ArrayList<Integer>();
+
+		Gateway(Integer... rcs) {
+			this.rcs = new ArrayDeque<Integer>(Arrays.asList(rcs));
+		}
+
+		@Override
+		public int flow(GatewayRequest request) throws IOException {
+			ECIRequest req = (ECIRequest) request;
+			modes.add(req.Extend_Mode);
+			int rc = rcs.removeFirst();
+			if(rc == LOST) {
+				throw new IOException("Connection reset");
+			}
+			req.Cics_Rc = rc;
+			if(rc == 0) {
+				req.Luw_Token = TOKEN;
+			}
+			return rc;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+	}
+
+	private static class Factory implements ConnectionFactory<JavaGateway> {
+
+		private final Gateway gateway;
+		private final AtomicInteger destroyed = new AtomicInteger();
+
+		Factory(Gateway gateway) {
+			this.gateway = gateway;
+		}
+
+		@Override
+		public JavaGateway create() {
+			return gateway;
+		}
+
+		@Override
+		public boolean isValid(JavaGateway connection) {
+			return true;
+		}
+
+		@Override
+		public void destroy(JavaGateway connection) {
+			destroyed.incrementAndGet();
+		}
+
+	}
+
+	private CicsLuw luw(Factory factory) {
+		return new CicsLuw(config, new JavaGatewayPool(factory, 0, 1, 0, 100));
+	}
+
+	private static JavaCicsException fail(CicsLuw luw) {
+		try {
+			luw.runECIRequest("PRG2", "PROG2", new byte[10]);
+			return null;
+		} catch (JavaCicsException e) {
+			return e;
+		}
+	}
+
+	@Test
+	public void testAbend() {
+		// Arrange
+		Gateway gateway = new Gateway(0, ECIRequest.ECI_ERR_TRANSACTION_ABEND);
+		Factory factory = new Factory(gateway);
+		CicsLuw target = luw(factory);
+		target.runECIRequest("PRG1", "PROG1", new byte[10]);
+
+		// Act
+		JavaCicsException error = fail(target);
+
+		// Assert
+		Assert.assertNotNull(error);
+		Assert.assertFalse(error instanceof CicsLuwInDoubtException);
+		Assert.assertTrue(target.isEnded());
+		Assert.assertEquals(Arrays.asList(ECIRequest.ECI_EXTENDED, ECIRequest.ECI_EXTENDED), gateway.modes);
+		Assert.assertEquals(0, factory.destroyed.get());
+	}
+
+	@Test
+	public void testTimeoutInDoubt() {
+		// Arrange
+		Gateway gateway = new Gateway(0, ECIRequest.ECI_ERR_RESPONSE_TIMEOUT);
+		Factory factory = new Factory(gateway);
+		CicsLuw target = luw(factory);
+		target.runECIRequest("PRG1", "PROG1", new byte[10]);
+
+		// Act
+		JavaCicsException error = fail(target);
+
+		// Assert
+		Assert.assertNotNull(error);
+		Assert.assertTrue(error instanceof CicsLuwInDoubtException);
+		Assert.assertTrue(error.getMessage().startsWith("LUW in doubt: "));
+		Assert.assertTrue(target.isEnded());
+		Assert.assertEquals(1, factory.destroyed.get());
+	}
+
+	@Test
+	public void testRejectedBacksOut() {
+		// Arrange
+		Gateway gateway = new Gateway(0, ECIRequest.ECI_ERR_SECURITY_ERROR, 0);
+		Factory factory = new Factory(gateway);
+		CicsLuw target = luw(factory);
+		target.runECIRequest("PRG1", "PROG1", new byte[10]);
+
+		// Act
+		JavaCicsException error = fail(target);
+
+		// Assert
+		Assert.assertNotNull(error);
+		Assert.assertFalse(error instanceof CicsLuwInDoubtException);
+		Assert.assertTrue(target.isEnded());
+		Assert.assertEquals(Arrays.asList(ECIRequest.ECI_EXTENDED, ECIRequest.ECI_EXTENDED, ECIRequest.ECI_BACKOUT), 
+				gateway.modes);
+		Assert.assertEquals(0, factory.destroyed.get());
+	}
+
+	@Test(expected = CicsLuwInDoubtException.class)
+	public void testBackoutFailedInDoubt() {
+		// Arrange
+		Gateway gateway = new Gateway(0, ECIRequest.ECI_ERR_SECURITY_ERROR, ECIRequest.ECI_ERR_LUW_TOKEN);
+		CicsLuw target = luw(new Factory(gateway));
+		target.runECIRequest("PRG1", "PROG1", new byte[10]);
+
+		// Act
+		target.runECIRequest("PRG2", "PROG2", new byte[10]);
+	}
+
+	@Test
+	public void testBackoutLost() {
+		// Arrange
+		Gateway gateway = new Gateway(0, ECIRequest.ECI_ERR_SECURITY_ERROR, LOST);
+		Factory factory = new Factory(gateway);
+		CicsLuw target = luw(factory);
+		target.runECIRequest("PRG1", "PROG1", new byte[10]);
+
+		// Act
+		JavaCicsException error = fail(target);
+
+		// Assert
+		Assert.assertTrue(error instanceof CicsLuwInDoubtException);
+		Assert.assertTrue(error.getCause() instanceof JavaCicsException);
+		Assert.assertFalse(error.getCause() instanceof CicsLuwInDoubtException);
+		Assert.assertEquals(1, error.getSuppressed().length);
+		Assert.assertTrue(error.getSuppressed()[0].getCause() instanceof IOException);
+		Assert.assertTrue(target.isEnded());
+		Assert.assertEquals(1, factory.destroyed.get());
+	}
+
+	@Test(expected = JavaCicsException.class)
+	public void testMaxCommarea() {
+		// Arrange
+		Gateway gateway = new Gateway();
+		CicsLuw target = luw(new Factory(gateway));
+
+		// Act
+		target.runECIRequest("PRG1", "PROG1", new byte[Cics.MAX_COMMAREA + 1]);
+	}
+
+}
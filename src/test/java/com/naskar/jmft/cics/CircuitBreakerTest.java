@@ -0,0 +1,181 @@
+package com.naskar.jmft.cics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+	private final Configuration config = new Configuration("tcp://localhost", 2006, "CICS1", "USER1", "PASS1");
+
+	private final AtomicInteger calls = new AtomicInteger();
+	private final AtomicBoolean sick = new AtomicBoolean(true);
+	private final AtomicBoolean abend = new AtomicBoolean(false);
+
+	/**
+	 * Fails the connection while sick, the program ABENDs when abend.
+	 */
+	private Cics cics(CircuitBreaker breaker) {
+		final LocalTransport local = new LocalTransport().register("PROG1", (transaction, commarea) -> {
+			if(abend.get()) {
+				throw new IllegalStateException("SOS");
+			}
+		});
+		CicsTransport transport = new CicsTransport() {
+
+			@Override
+			public byte[] call(Configuration config, String transaction, String program, 
+					byte[] commarea, int dataLength, int replyLength) {
+				calls.incrementAndGet();
+				if(sick.get()) {
+					throw new CicsConnectionException("Error: RC [-3]");
+				}
+				return local.call(config, transaction, program, commarea, dataLength, replyLength);
+			}
+
+			@Override
+			public CompletableFuture<byte[]> callAsync(Configuration config, String transaction, String program, 
+					byte[] commarea, int dataLength, int replyLength) {
+				throw new UnsupportedOperationException();
+			}
+
+		};
+		return new Cics(config, "PRG1", "PROG1", new CircuitBreakerTransport(transport, () -> breaker));
+	}
+
+	private static boolean run(Cics cics) {
+		try {
+			cics.runECIRequest(new byte[4]);
+			return true;
+		} catch (JavaCicsException e) {
+			return false;
+		}
+	}
+
+	@Test
+	public void testOpen() {
+		// Arrange
+		CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 0, 60000, 1);
+		Cics target = cics(breaker);
+
+		// Act
+		for(int i = 0; i < 10; i++) {
+			run(target);
+		}
+
+		// Assert
+		Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		Assert.assertEquals(4, calls.get());
+		try {
+			target.runECIRequest(new byte[4]);
+			Assert.fail();
+		} catch (JavaCicsException e) {
+			Assert.assertEquals("Circuit open: [CICS1]", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testHalfOpen() throws Exception {
+		// Arrange
+		CircuitBreaker breaker = new CircuitBreaker(10, 2, 0.5, 0, 20, 2);
+		Cics target = cics(breaker);
+		run(target);
+		run(target);
+		Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		// Act
+		Thread.sleep(30);
+		boolean failedProbe = run(target);
+		Thread.sleep(30);
+		sick.set(false);
+		boolean probe1 = run(target);
+		boolean probe2 = run(target);
+
+		// Assert
+		Assert.assertFalse(failedProbe);
+		Assert.assertTrue(probe1);
+		Assert.assertTrue(probe2);
+		Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		Assert.assertEquals(5, calls.get());
+	}
+
+	@Test
+	public void testAbend() {
+		// Arrange
+		CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 0, 60000, 1);
+		Cics target = cics(breaker);
+		sick.set(false);
+		abend.set(true);
+
+		// Act
+		int failed = 0;
+		for(int i = 0; i < 10; i++) {
+			if(!run(target)) {
+				failed++;
+			}
+		}
+
+		// Assert
+		Assert.assertEquals(10, failed);
+		Assert.assertEquals(10, calls.get());
+		Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	public void testSlowCall() {
+		// Arrange
+		CircuitBreaker breaker = new CircuitBreaker(4, 2, 1, 10, 60000, 1);
+
+		// Act
+		breaker.onSuccess(breaker.tryAcquire(), 50);
+		breaker.onSuccess(breaker.tryAcquire(), 50);
+
+		// Assert
+		Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		Assert.assertEquals(-1, breaker.tryAcquire());
+	}
+
+	@Test
+	public void testClosed() {
+		// Arrange
+		CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.75, 0, 60000, 1);
+
+		// Act
+		for(int i = 0; i < 20; i++) {
+			long permit = breaker.tryAcquire();
+			Assert.assertTrue(permit >= 0);
+			if(i % 2 == 0) {
+				breaker.onError(permit, 1);
+			} else {
+				breaker.onSuccess(permit, 1);
+			}
+		}
+
+		// Assert
+		Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	public void testLateCall() throws Exception {
+		// Arrange
+		CircuitBreaker breaker = new CircuitBreaker(10, 2, 0.5, 0, 20, 1);
+		long late = breaker.tryAcquire();
+		breaker.onError(breaker.tryAcquire(), 1);
+		breaker.onError(breaker.tryAcquire(), 1);
+		Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		Thread.sleep(30);
+		long probe = breaker.tryAcquire();
+
+		// Act: a call started before it opened ends while it probes
+		breaker.onSuccess(late, 1);
+
+		// Assert
+		Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		breaker.onSuccess(probe, 1);
+		Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+}
@@ -0,0 +1,771 @@
+package com.naskar.jmft.cics;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CommAreaTest {
+
+	public static class Header {
+
+		@PIC9(4)
+		private Integer version;
+
+		@PICX(6)
+		private String system;
+
+	}
+
+	public static class Data {
+
+		@PIC9(8)
+		private Long id;
+
+		@PIC9(5)
+		private Integer code;
+
+		@PIC9(value = 5, decimal = 2)
+		private Double amount;
+
+		@PIC9(value = 5, usage = Usage.COMP_3)
+		private Integer packed;
+
+		@PICS9(value = 5, decimal = 2, usage = Usage.COMP_3)
+		private Double signedPacked;
+
+		@PICX(10)
+		private String name;
+
+		@PICX(value = 4, encoding = Encoding.HEX)
+		private String hex;
+
+		@PICX(value = 3, encoding = Encoding.BASE64)
+		private String base64;
+
+		@REDEFINES
+		private Header header = new Header();
+
+	}
+
+	public static class Amount {
+
+		@PICS9(5)
+		private Integer display;
+
+		@PICS9(value = 5, usage = Usage.COMP_3)
+		private Long packed;
+
+		@PICS9(value = 5, decimal = 2, usage = Usage.COMP_3)
+		private Double money;
+
+	}
+
+	public static class Response {
+
+		@PICS9(value = 8, usage = Usage.COMP)
+		private int resp;
+
+		@PIC9(value = 4, usage = Usage.COMP_4)
+		private short count;
+
+		@PICS9(value = 18, usage = Usage.COMP_5)
+		private long total;
+
+		@PICS9(value = 5, decimal = 2, usage = Usage.COMP)
+		private Double rate;
+
+		@PICS9(value = 1, usage = Usage.COMP_2)
+		private double factor;
+
+		@PICS9(value = 1, usage = Usage.COMP_1)
+		private Float ratio;
+
+	}
+
+	public static class Legacy {
+
+		@PIC9(5)
+		private Integer integer = 123;
+
+		@PIC9(5)
+		private Long big = 98765L;
+
+		@PIC9(value = 3, decimal = 2)
+		private Double amount = 123.45;
+
+		@PIC9(value = 3, decimal = 2)
+		private Double half = 1.005;
+
+		@PIC9(value = 5, usage = Usage.COMP_3)
+		private Integer packed = 12345;
+
+		@PIC9(value = 3, decimal = 2, usage = Usage.COMP_3)
+		private Double packedAmount = 123.45;
+
+		@PICS9(value = 5, usage = Usage.COMP_3)
+		private Integer signedPacked = 123;
+
+		@PICS9(value = 5, usage = Usage.COMP_3)
+		private Long signedBig = 456L;
+
+		@PICS9(value = 3, decimal = 2, usage = Usage.COMP_3)
+		private Double signedAmount = 1.5;
+
+		@PICX(5)
+		private String name = "AB";
+
+	}
+
+	public static class LegacySigned {
+
+		@PICS9(value = 3, decimal = 2)
+		private Double positive = 123.45;
+
+		@PICS9(value = 3, decimal = 2)
+		private Double negative = -123.45;
+
+		@PICS9(5)
+		private Integer integer = 123;
+
+	}
+
+	public static class Rate {
+
+		@PICS9(value = 3, decimal = 2)
+		private Double display;
+
+		@PIC9(value = 3, decimal = 2, usage = Usage.COMP_3)
+		private Double packed;
+
+	}
+
+	public static class Money {
+
+		@PICS9(value = 5, decimal = 2)
+		private BigDecimal display;
+
+		@PICS9(value = 13, decimal = 2, usage = Usage.COMP_3)
+		private BigDecimal packed;
+
+		@PICS9(5)
+		private int count;
+
+		@PIC9(value = 5, decimal = 2)
+		private double rate;
+
+		@PICS9(value = 10, usage = Usage.COMP_3)
+		private long total;
+
+	}
+
+	public static class Item {
+
+		@PICX(3)
+		private String code;
+
+		@PICS9(value = 5, usage = Usage.COMP_3)
+		private Long quantity;
+
+	}
+
+	public static class Order {
+
+		@OCCURS(3)
+		@PIC9(2)
+		private int[] flags;
+
+		@OCCURS(2)
+		@PICX(2)
+		private String[] names;
+
+		@PIC9(2)
+		private Integer count;
+
+		@OCCURS(value = 10, dependingOn = "count")
+		private List<Item> items;
+
+		@PICX(3)
+		private String end;
+
+	}
+
+	public static class Brackets {
+
+		@PICX(2)
+		private String text;
+
+		@PICX(value = 2, codePage = "CP037")
+		private String text037;
+
+	}
+
+	public static class Counter {
+
+		private int value;
+
+	}
+
+	public static class CounterCommAreaCodec implements CommAreaCodec<Counter> {
+
+		@Override
+		public int length(Counter o) {
+			return 1;
+		}
+
+		@Override
+		public int encode(Counter o, byte[] dst, int offset) {
+			dst[offset] = (byte) o.value;
+			return offset + 1;
+		}
+
+		@Override
+		public int decode(byte[] src, int offset, Counter o) {
+			o.value = src[offset];
+			return offset + 1;
+		}
+
+	}
+
+	private static Data sample() {
+		Data data = new Data();
+		data.id = 12345678L;
+		data.code = 42;
+		data.amount = 123.45;
+		data.packed = 12345;
+		data.signedPacked = 123.45;
+		data.name = "NASKAR";
+		data.hex = "C1C2";
+		data.base64 = "AQID";
+		data.header.version = 7;
+		data.header.system = "JMFT";
+		return data;
+	}
+
+	private static String hex(byte[] data) {
+		StringBuilder sb = new StringBuilder();
+		for(byte b : data) {
+			sb.append(String.format("%02X", b));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testLayout() {
+		// Act
+		CommAreaLayout target = CommAreaLayout.of(Data.class);
+
+		// Assert
+		Assert.assertSame(target, CommAreaLayout.of(Data.class));
+		Assert.assertEquals(54, target.getLength());
+		Assert.assertEquals(9, target.getFields().size());
+
+		CommAreaField packed = target.getFields().get(3);
+		Assert.assertEquals("packed", packed.getName());
+		Assert.assertEquals(20, packed.getOffset());
+		Assert.assertEquals(3, packed.getLength());
+
+		CommAreaField header = target.getFields().get(8);
+		Assert.assertEquals(CommAreaField.Kind.GROUP, header.getKind());
+		Assert.assertEquals(44, header.getOffset());
+		Assert.assertEquals(10, header.getLength());
+	}
+
+	@Test
+	public void testTo() {
+		// Arrange
+		CommArea target = new CommArea();
+
+		// Act
+		byte[] result = target.to(sample());
+
+		// Assert
+		Assert.assertEquals(
+				"F1F2F3F4F5F6F7F8" +
+				"F0F0F0F4F2" +
+				"F0F0F1F2F3F4F5" +
+				"12345F" +
+				"0012345C" +
+				"D5C1E2D2C1D940404040" +
+				"C1C20000" +
+				"010203" +
+				"F0F0F0F7" +
+				"D1D4C6E34040", hex(result));
+	}
+
+	@Test
+	public void testFrom() {
+		// Arrange
+		CommArea target = new CommArea();
+		byte[] commarea = target.to(sample());
+		Data data = new Data();
+
+		// Act
+		int length = target.from(commarea, data);
+
+		// Assert
+		Assert.assertEquals(commarea.length, length);
+		Assert.assertEquals(Long.valueOf(12345678L), data.id);
+		Assert.assertEquals(Integer.valueOf(42), data.code);
+		Assert.assertEquals(Double.valueOf(123.45), data.amount);
+		Assert.assertEquals(Integer.valueOf(12345), data.packed);
+		Assert.assertEquals(Double.valueOf(123.45), data.signedPacked);
+		Assert.assertEquals("NASKAR", data.name);
+		Assert.assertEquals("C1C20000", data.hex);
+		Assert.assertEquals("AQID", data.base64);
+		Assert.assertEquals(Integer.valueOf(7), data.header.version);
+		Assert.assertEquals("JMFT", data.header.system);
+	}
+
+	@Test
+	public void testFromSpaces() {
+		// Arrange
+		CommArea target = new CommArea();
+		byte[] commarea = target.to(new Header());
+		Header header = new Header();
+		header.version = 1;
+		header.system = "X";
+
+		// Act
+		target.from(commarea, header);
+
+		// Assert
+		Assert.assertEquals("F0F0F0F0404040404040", hex(commarea));
+		Assert.assertEquals(Integer.valueOf(0), header.version);
+		Assert.assertEquals("", header.system);
+	}
+
+	@Test
+	public void testCodecByName() {
+		// Arrange
+		CommArea target = new CommArea();
+		Counter counter = new Counter();
+		counter.value = 5;
+
+		// Act
+		byte[] result = target.to(counter);
+		Counter copy = new Counter();
+		int length = target.from(result, copy);
+
+		// Assert
+		Assert.assertArrayEquals(new byte[] { 5 }, result);
+		Assert.assertEquals(1, length);
+		Assert.assertEquals(5, copy.value);
+	}
+
+	@Test
+	public void testCodecRegistered() {
+		// Arrange
+		CommArea.register(Header.class, new CommAreaCodec<Header>() {
+
+			@Override
+			public int length(Header o) {
+				return 2;
+			}
+
+			@Override
+			public int encode(Header o, byte[] dst, int offset) {
+				dst[offset] = (byte) 0xC1;
+				dst[offset + 1] = (byte) 0xC2;
+				return offset + 2;
+			}
+
+			@Override
+			public int decode(byte[] src, int offset, Header o) {
+				return offset + 2;
+			}
+
+		});
+
+		try {
+			// Act
+			byte[] result = new CommArea().to(new Header());
+
+			// Assert
+			Assert.assertEquals("C1C2", hex(result));
+		} finally {
+			CommArea.unregister(Header.class);
+		}
+	}
+
+	@Test
+	public void testEncodeTo() {
+		// Arrange
+		CommArea target = new CommArea();
+		byte[] buffer = new byte[64];
+
+		// Act
+		int length = target.encodeTo(sample(), buffer, 4);
+
+		// Assert
+		Assert.assertEquals(54, length);
+		Assert.assertArrayEquals(target.to(sample()), Arrays.copyOfRange(buffer, 4, 4 + length));
+	}
+
+	@Test
+	public void testEncodeToByteBuffer() {
+		// Arrange
+		CommArea target = new CommArea();
+		ByteBuffer heap = ByteBuffer.allocate(64);
+		ByteBuffer direct = ByteBuffer.allocateDirect(64);
+		heap.put((byte) 1);
+		direct.put((byte) 1);
+
+		// Act
+		target.encodeTo(sample(), heap);
+		target.encodeTo(sample(), direct);
+
+		// Assert
+		Assert.assertEquals(55, heap.position());
+		Assert.assertEquals(55, direct.position());
+		heap.flip();
+		direct.flip();
+		Assert.assertEquals(heap, direct);
+	}
+
+	@Test
+	public void testNegative() {
+		// Arrange
+		CommArea target = new CommArea();
+		Amount amount = new Amount();
+		amount.display = -123;
+		amount.packed = -123L;
+		amount.money = -123.45;
+
+		// Act
+		byte[] result = target.to(amount);
+		Amount copy = new Amount();
+		target.from(result, copy);
+
+		// Assert
+		Assert.assertEquals("F0F0F1F2D3" + "00123D" + "0012345D", hex(result));
+		Assert.assertEquals(Integer.valueOf(-123), copy.display);
+		Assert.assertEquals(Long.valueOf(-123L), copy.packed);
+		Assert.assertEquals(Double.valueOf(-123.45), copy.money);
+	}
+
+	@Test
+	public void testDecodeFrom() {
+		// Arrange
+		CommArea target = new CommArea();
+		byte[] buffer = new byte[64];
+		target.encodeTo(sample(), buffer, 4);
+		Data data = new Data();
+
+		// Act
+		int length = target.decodeFrom(buffer, 4, data);
+
+		// Assert
+		Assert.assertEquals(54, length);
+		Assert.assertEquals(Long.valueOf(12345678L), data.id);
+		Assert.assertEquals("NASKAR", data.name);
+		Assert.assertEquals("JMFT", data.header.system);
+	}
+
+	@Test
+	public void testDecodeFromByteBuffer() {
+		// Arrange
+		CommArea target = new CommArea();
+		ByteBuffer direct = ByteBuffer.allocateDirect(64);
+		target.encodeTo(sample(), direct);
+		direct.flip();
+		Data data = new Data();
+
+		// Act
+		int length = target.decodeFrom(direct, data);
+
+		// Assert
+		Assert.assertEquals(54, length);
+		Assert.assertEquals(54, direct.position());
+		Assert.assertEquals(Double.valueOf(123.45), data.signedPacked);
+		Assert.assertEquals(Integer.valueOf(7), data.header.version);
+	}
+
+	@Test
+	public void testDecodeShort() {
+		// Arrange
+		CommArea target = new CommArea();
+		byte[] commarea = Arrays.copyOf(target.to(sample()), 50);
+		Data data = new Data();
+
+		// Act
+		target.from(commarea, data);
+
+		// Assert
+		Assert.assertEquals(Integer.valueOf(7), data.header.version);
+		Assert.assertEquals("JM", data.header.system);
+	}
+
+	@Test
+	public void testCodePage() {
+		// Arrange
+		CommArea target = new CommArea(CodePage.CP1047);
+		Brackets brackets = new Brackets();
+		brackets.text = "[]";
+		brackets.text037 = "[]";
+
+		// Act
+		byte[] result = target.to(brackets);
+		Brackets copy = new Brackets();
+		target.from(result, copy);
+
+		// Assert
+		Assert.assertEquals("ADBD" + "BABB", hex(result));
+		Assert.assertEquals("[]", copy.text);
+		Assert.assertEquals("[]", copy.text037);
+		Assert.assertEquals("[]", new CommArea(CodePage.CP037).fromBytes(new byte[] { (byte) 0xBA, (byte) 0xBB }));
+		Assert.assertSame(CodePage.CP1140, CodePage.forName("IBM01140"));
+	}
+
+	@Test
+	public void testBinary() {
+		// Arrange
+		CommArea target = new CommArea();
+		Response response = new Response();
+		response.resp = -12345;
+		response.count = 9999;
+		response.total = Long.MIN_VALUE;
+		response.rate = 12.5;
+		response.factor = -118.625;
+		response.ratio = 1.0f;
+
+		// Act
+		byte[] result = target.to(response);
+		Response copy = new Response();
+		int length = target.from(result, copy);
+
+		// Assert
+		Assert.assertEquals(30, length);
+		Assert.assertEquals(
+				"FFFFCFC7" +
+				"270F" +
+				"8000000000000000" +
+				"000004E2" +
+				"C276A00000000000" +
+				"41100000", hex(result));
+		Assert.assertEquals(-12345, copy.resp);
+		Assert.assertEquals(9999, copy.count);
+		Assert.assertEquals(Long.MIN_VALUE, copy.total);
+		Assert.assertEquals(Double.valueOf(12.5), copy.rate);
+		Assert.assertEquals(-118.625, copy.factor, 0.0);
+		Assert.assertEquals(Float.valueOf(1.0f), copy.ratio);
+	}
+
+	@Test(expected = JavaCicsException.class)
+	public void testBinaryOverflow() {
+		// Arrange
+		Response response = new Response();
+		response.resp = 123456789;
+
+		// Act
+		new CommArea().to(response);
+	}
+
+	@Test
+	public void testOccurs() {
+		// Arrange
+		CommArea target = new CommArea();
+		Order order = new Order();
+		order.flags = new int[] { 1, 2 };
+		order.names = new String[] { "AB", "CD" };
+		order.count = 2;
+		order.items = new ArrayList<Item>();
+		for(int i = 1; i <= 2; i++) {
+			Item item = new Item();
+			item.code = "I" + i;
+			item.quantity = -10L * i;
+			order.items.add(item);
+		}
+		order.end = "END";
+
+		// Act
+		byte[] result = target.to(order);
+		Order copy = new Order();
+		int length = target.from(result, copy);
+
+		// Assert
+		CommAreaLayout layout = CommAreaLayout.of(Order.class);
+		Assert.assertTrue(layout.isVariable());
+		Assert.assertEquals(6 + 4 + 2 + 60 + 3, layout.getLength());
+		Assert.assertEquals(6 + 4 + 2 + 12 + 3, length);
+		Assert.assertEquals(
+				"F0F1F0F2F0F0" +
+				"C1C2C3C4" +
+				"F0F2" +
+				"C9F140" + "00010D" +
+				"C9F240" + "00020D" +
+				"C5D5C4", hex(result));
+		Assert.assertArrayEquals(new int[] { 1, 2, 0 }, copy.flags);
+		Assert.assertArrayEquals(new String[] { "AB", "CD" }, copy.names);
+		Assert.assertEquals(2, copy.items.size());
+		Assert.assertEquals("I2", copy.items.get(1).code);
+		Assert.assertEquals(Long.valueOf(-20L), copy.items.get(1).quantity);
+		Assert.assertEquals("END", copy.end);
+	}
+
+	@Test
+	public void testOccursReuse() {
+		// Arrange
+		CommArea target = new CommArea();
+		Order order = new Order();
+		order.count = 1;
+		order.items = new ArrayList<Item>(Arrays.asList(new Item()));
+		order.items.get(0).code = "X";
+		byte[] commarea = target.to(order);
+		
+		Order copy = new Order();
+		copy.items = new ArrayList<Item>(Arrays.asList(new Item(), new Item()));
+		Item first = copy.items.get(0);
+
+		// Act
+		target.from(commarea, copy);
+
+		// Assert
+		List<Item> items = copy.items;
+		Assert.assertEquals(1, items.size());
+		Assert.assertSame(first, items.get(0));
+		Assert.assertEquals("X", first.code);
+	}
+
+	@Test(expected = JavaCicsException.class)
+	public void testOccursDependingOnOutOfRange() {
+		// Arrange
+		Order order = new Order();
+		order.count = 11;
+
+		// Act
+		new CommArea().to(order);
+	}
+
+	@Test
+	public void testPrimitiveAndBigDecimal() {
+		// Arrange
+		CommArea target = new CommArea();
+		Money money = new Money();
+		money.display = new BigDecimal("-123.45");
+		money.packed = new BigDecimal("12345678901.23");
+		money.count = 42;
+		money.rate = 1.5;
+		money.total = -9876543210L;
+
+		// Act
+		byte[] result = target.to(money);
+		Money copy = new Money();
+		target.from(result, copy);
+
+		// Assert
+		Assert.assertEquals(
+				"F0F0F1F2F3F4D5" +
+				"001234567890123C" +
+				"F0F0F0F4C2" +
+				"F0F0F0F0F1F5F0" +
+				"09876543210D", hex(result));
+		Assert.assertEquals(new BigDecimal("-123.45"), copy.display);
+		Assert.assertEquals(new BigDecimal("12345678901.23"), copy.packed);
+		Assert.assertEquals(42, copy.count);
+		Assert.assertEquals(1.5, copy.rate, 0.0);
+		Assert.assertEquals(-9876543210L, copy.total);
+	}
+
+	@Test
+	public void testSignedDisplayPositive() {
+		// Arrange
+		CommArea target = new CommArea();
+		byte[] commarea = { (byte) 0xF0, (byte) 0xF0, (byte) 0xF1, (byte) 0xF2, (byte) 0xF3,
+				0x00, 0x00, 0x0C, 
+				0x00, 0x00, 0x00, 0x0C };
+		Amount amount = new Amount();
+
+		// Act
+		target.from(commarea, amount);
+
+		// Assert
+		Assert.assertEquals(Integer.valueOf(123), amount.display);
+	}
+
+	@Test
+	public void testDoubleStrict() {
+		// Arrange
+		CommArea target = new CommArea(CodePage.CP1047, NumericMode.STRICT);
+		Rate rate = new Rate();
+		rate.display = -123.455;
+		rate.packed = 0.125;
+
+		// Act
+		byte[] result = target.to(rate);
+		Rate copy = new Rate();
+		target.from(result, copy);
+
+		// Assert
+		Assert.assertEquals("F1F2F3F4D6" + "00013F", hex(result));
+		Assert.assertEquals(Double.valueOf(-123.46), copy.display);
+		Assert.assertEquals(Double.valueOf(0.13), copy.packed);
+	}
+
+	@Test(expected = JavaCicsException.class)
+	public void testDoubleStrictOverflow() {
+		// Arrange
+		Rate rate = new Rate();
+		rate.display = 1234.5;
+
+		// Act
+		new CommArea(CodePage.CP1047, NumericMode.STRICT).to(rate);
+	}
+
+	@Test
+	public void testDoubleCompatible() {
+		// Arrange
+		CommArea target = new CommArea(CodePage.CP1047, NumericMode.COMPATIBLE);
+		Rate rate = new Rate();
+		rate.display = 1234.5;
+		rate.packed = 0.125;
+
+		// Act
+		byte[] result = target.to(rate);
+
+		// Assert
+		Assert.assertEquals("F2F3F4F5C0" + "00012F", hex(result));
+	}
+
+	@Test
+	public void testCompatibleBaseline() {
+		// Arrange
+		CommArea target = new CommArea();
+
+		// Act
+		byte[] result = target.to(new Legacy());
+
+		// Assert: bytes written by the DecimalFormat version
+		Assert.assertEquals(
+				"F0F0F1F2F3" +
+				"F9F8F7F6F5" +
+				"F1F2F3F4F5" +
+				"F0F0F1F0F0" +
+				"12345F" +
+				"12345F" +
+				"00123C" +
+				"00456C" +
+				"00150C" +
+				"C1C2404040", hex(result));
+	}
+
+	@Test
+	public void testCompatibleSignedDisplay() {
+		// Arrange
+		CommArea target = new CommArea();
+
+		// Act
+		byte[] result = target.to(new LegacySigned());
+
+		// Assert: the DecimalFormat version wrote F0F2F3F4C4 F1F2F3F4D4 F0F0F1F2F3
+		Assert.assertEquals(
+				"F1F2F3F4C5" +
+				"F1F2F3F4D5" +
+				"F0F0F1F2C3", hex(result));
+	}
+
+}
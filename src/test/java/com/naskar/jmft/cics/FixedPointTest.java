@@ -0,0 +1,54 @@
+package com.naskar.jmft.cics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FixedPointTest {
+
+	@Test
+	public void testRounding() {
+		Assert.assertEquals(12346L, FixedPoint.unscaled(123.455, 2, RoundingMode.HALF_UP));
+		Assert.assertEquals(12345L, FixedPoint.unscaled(123.455, 2, RoundingMode.HALF_UP, true));
+		Assert.assertEquals(101L, FixedPoint.unscaled(1.005, 2, RoundingMode.HALF_UP));
+		Assert.assertEquals(100L, FixedPoint.unscaled(1.005, 2, RoundingMode.HALF_UP, true));
+		Assert.assertEquals(13L, FixedPoint.unscaled(0.125, 2, RoundingMode.HALF_UP));
+		Assert.assertEquals(12L, FixedPoint.unscaled(0.125, 2, RoundingMode.HALF_EVEN));
+		Assert.assertEquals(-13L, FixedPoint.unscaled(-0.125, 2, RoundingMode.HALF_UP));
+	}
+
+	@Test
+	public void testSameAsBigDecimal() {
+		// Arrange
+		Random random = new Random(42);
+
+		for(int i = 0; i < 100000; i++) {
+			double value = Math.round(random.nextDouble() * 1e7) / 1e3 * (random.nextBoolean() ? 1 : -1);
+			int decimal = random.nextInt(4);
+
+			for(RoundingMode rounding : new RoundingMode[] { RoundingMode.HALF_UP, RoundingMode.HALF_EVEN }) {
+				// Act
+				long result = FixedPoint.unscaled(value, decimal, rounding);
+				long binary = FixedPoint.unscaled(value, decimal, rounding, true);
+
+				// Assert
+				Assert.assertEquals(value + " " + decimal, 
+						BigDecimal.valueOf(value).setScale(decimal, rounding).unscaledValue().longValue(), result);
+				Assert.assertEquals(value + " " + decimal, 
+						new BigDecimal(value).setScale(decimal, rounding).unscaledValue().longValue(), binary);
+			}
+		}
+	}
+
+	@Test
+	public void testTruncate() {
+		Assert.assertTrue(FixedPoint.fits(99999L, 5));
+		Assert.assertFalse(FixedPoint.fits(100000L, 5));
+		Assert.assertEquals(23456L, FixedPoint.truncate(123456L, 5));
+		Assert.assertEquals(-23456L, FixedPoint.truncate(-123456L, 5));
+	}
+
+}
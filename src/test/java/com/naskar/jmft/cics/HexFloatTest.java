@@ -0,0 +1,79 @@
+package com.naskar.jmft.cics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HexFloatTest {
+
+	private static String hex(byte[] data) {
+		StringBuilder sb = new StringBuilder();
+		for(byte b : data) {
+			sb.append(String.format("%02X", b));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testEncode() {
+		// Arrange
+		byte[] one = new byte[4];
+		byte[] negative = new byte[8];
+		byte[] tenth = new byte[8];
+
+		// Act
+		HexFloat.encode(1.0, one, 0, 4);
+		HexFloat.encode(-118.625, negative, 0, 8);
+		HexFloat.encode(0.1, tenth, 0, 8);
+
+		// Assert
+		Assert.assertEquals("41100000", hex(one));
+		Assert.assertEquals("C276A00000000000", hex(negative));
+		Assert.assertEquals("401999999999999A", hex(tenth));
+	}
+
+	@Test
+	public void testDecode() {
+		// Arrange
+		byte[] data = { 0x00, (byte) 0xC2, 0x76, (byte) 0xA0, 0x00 };
+
+		// Act
+		double result = HexFloat.decode(data, 1, 4);
+
+		// Assert
+		Assert.assertEquals(-118.625, result, 0.0);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		// Arrange
+		double[] values = { 0.0, 1e-70, 0.1, 3.14159, -2.5e10, 7.0e75 };
+		byte[] data = new byte[8];
+
+		for(double value : values) {
+			// Act
+			HexFloat.encode(value, data, 0, 8);
+
+			// Assert
+			Assert.assertEquals(value, HexFloat.decode(data, 0, 8), 0.0);
+		}
+	}
+
+	@Test
+	public void testShortRounding() {
+		// Arrange
+		byte[] data = new byte[4];
+
+		// Act
+		HexFloat.encode(0.1, data, 0, 4);
+
+		// Assert
+		Assert.assertEquals("4019999A", hex(data));
+		Assert.assertEquals(0.1f, (float) HexFloat.decode(data, 0, 4), 1e-7f);
+	}
+
+	@Test(expected = JavaCicsException.class)
+	public void testOverflow() {
+		HexFloat.encode(1e76, new byte[8], 0, 8);
+	}
+
+}
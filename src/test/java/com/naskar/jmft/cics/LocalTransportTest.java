@@ -0,0 +1,170 @@
+package com.naskar.jmft.cics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LocalTransportTest {
+
+	public static class Request {
+
+		@PIC9(5)
+		private Integer id;
+
+	}
+
+	public static class Reply {
+
+		@PIC9(5)
+		private Integer id;
+
+		@PICX(10)
+		private String name;
+
+	}
+
+	private final Configuration config = new Configuration("tcp://localhost", 2006, "CICS1", "USER1", "PASS1");
+
+	private final CommArea comm = new CommArea();
+
+	/**
+	 * Echoes the id with its name, the bytes after the input must be low-values.
+	 */
+	private final CicsHandler prog1 = (transaction, commarea) -> {
+		for(int i = 5; i < commarea.length; i++) {
+			if(commarea[i] != 0) {
+				throw new IllegalStateException("Not sent: " + i);
+			}
+		}
+		Reply reply = new Reply();
+		comm.from(commarea, reply);
+		reply.name = transaction + "-" + reply.id;
+		comm.encodeTo(reply, commarea, 0);
+	};
+
+	private static Request request(int id) {
+		Request request = new Request();
+		request.id = id;
+		return request;
+	}
+
+	@Test
+	public void testProgram() {
+		// Arrange
+		LocalTransport transport = new LocalTransport().register("PROG1", prog1);
+		CicsProgram<Request, Reply> target = new CicsProgram<Request, Reply>(
+				new Cics(config, "PRG1", "PROG1", transport), comm, Request.class, Reply.class).setLength(100);
+
+		// Act
+		Reply result = target.call(request(42));
+
+		// Assert
+		Assert.assertEquals(Integer.valueOf(42), result.id);
+		Assert.assertEquals("PRG1-42", result.name);
+	}
+
+	@Test
+	public void testProgramAsyncError() {
+		// Arrange: the async call throws before a future is given
+		final LocalTransport local = new LocalTransport().register("PROG1", prog1);
+		final List<byte[]> sent = new ArrayList<byte[]>();
+		CicsTransport transport = new CicsTransport() {
+
+			@Override
+			public byte[] call(Configuration config, String transaction, String program, 
+					byte[] commarea, int dataLength, int replyLength) {
+				sent.add(commarea);
+				return local.call(config, transaction, program, commarea, dataLength, replyLength);
+			}
+
+			@Override
+			public CompletableFuture<byte[]> callAsync(Configuration config, String transaction, String program, 
+					byte[] commarea, int dataLength, int replyLength) {
+				sent.add(commarea);
+				throw new JavaCicsException("Error: RC [-3]");
+			}
+
+		};
+		CicsProgram<Request, Reply> target = new CicsProgram<Request, Reply>(
+				new Cics(config, "PRG1", "PROG1", transport), comm, Request.class, Reply.class).setLength(100);
+
+		// Act
+		try {
+			target.callAsync(request(1));
+			Assert.fail();
+		} catch (JavaCicsException e) {
+			// Assert
+			Assert.assertEquals("Error: RC [-3]", e.getMessage());
+		}
+		Reply result = target.call(request(42));
+
+		// Assert: the buffer went back to the program
+		Assert.assertEquals("PRG1-42", result.name);
+		Assert.assertSame(sent.get(0), sent.get(1));
+	}
+
+	@Test
+	public void testReplyLength() {
+		// Arrange
+		LocalTransport transport = new LocalTransport().register("PROG1", (transaction, commarea) -> {
+			commarea[0] = 1;
+			commarea[3] = 1;
+		});
+		Cics target = new Cics(config, "PRG1", "PROG1", transport);
+
+		// Act
+		byte[] result = target.runECIRequest(new byte[4], 0, 2);
+
+		// Assert
+		Assert.assertArrayEquals(new byte[] { 1, 0, 0, 0 }, result);
+	}
+
+	@Test
+	public void testProgramNotFound() {
+		// Arrange
+		Cics target = new Cics(config, "PRG1", "PROG2", new LocalTransport());
+
+		// Act
+		try {
+			target.runECIRequestAsync(new byte[10]).join();
+			Assert.fail();
+
+		// Assert
+		} catch(Exception e) {
+			Assert.assertEquals("Program not found: [PROG2]", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void testLoopback() throws Exception {
+		// Arrange
+		LocalTransport local = new LocalTransport().register("PROG1", prog1).setLatency(1);
+		List<byte[]> commareas = new ArrayList<byte[]>();
+		for(int i = 0; i < 50; i++) {
+			byte[] commarea = new byte[15];
+			comm.encodeTo(request(i), commarea, 0);
+			commareas.add(commarea);
+		}
+
+		try(LoopbackServer server = new LoopbackServer(local);
+				SocketTransport transport = new SocketTransport("127.0.0.1", server.getPort(), 4)) {
+			Cics cics = new Cics(config, "PRG1", "PROG1", transport);
+
+			// Act
+			List<CicsResult> results = new CicsBatch(commarea -> cics.runECIRequestAsync(commarea, 5, 15), 8).run(commareas);
+
+			// Assert
+			Assert.assertEquals(50, results.size());
+			for(int i = 0; i < 50; i++) {
+				Reply reply = new Reply();
+				comm.from(results.get(i).getCommarea(), reply);
+				Assert.assertEquals(Integer.valueOf(i), reply.id);
+				Assert.assertEquals("PRG1-" + i, reply.name);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.naskar.jmft.cics;
+
+import java.math.BigInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PackedDecimalTest {
+
+	private static String hex(byte[] data) {
+		StringBuilder sb = new StringBuilder();
+		for(byte b : data) {
+			sb.append(String.format("%02X", b));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testEncode() {
+		// Arrange
+		byte[] signed = new byte[3];
+		byte[] negative = new byte[3];
+		byte[] unsigned = new byte[4];
+
+		// Act
+		PackedDecimal.encode(12345L, true, signed, 0, 3);
+		PackedDecimal.encode(-12345L, true, negative, 0, 3);
+		PackedDecimal.encode(12345L, false, unsigned, 0, 4);
+
+		// Assert
+		Assert.assertEquals("12345C", hex(signed));
+		Assert.assertEquals("12345D", hex(negative));
+		Assert.assertEquals("0012345F", hex(unsigned));
+	}
+
+	@Test
+	public void testDecode() {
+		// Arrange
+		byte[] data = { 0x00, 0x12, 0x34, 0x5D };
+
+		// Act
+		long result = PackedDecimal.decode(data, 1, 3);
+
+		// Assert
+		Assert.assertEquals(-12345L, result);
+	}
+
+	@Test
+	public void testLongLimits() {
+		// Arrange
+		byte[] max = new byte[10];
+		byte[] min = new byte[10];
+
+		// Act
+		PackedDecimal.encode(Long.MAX_VALUE, true, max, 0, 10);
+		PackedDecimal.encode(Long.MIN_VALUE, true, min, 0, 10);
+
+		// Assert
+		Assert.assertEquals("9223372036854775807C", hex(max));
+		Assert.assertEquals("9223372036854775808D", hex(min));
+		Assert.assertEquals(Long.MAX_VALUE, PackedDecimal.decode(max, 0, 10));
+		Assert.assertEquals(Long.MIN_VALUE, PackedDecimal.decode(min, 0, 10));
+	}
+
+	@Test
+	public void testBig() {
+		// Arrange
+		BigInteger value = new BigInteger("-1234567890123456789012345678901");
+		byte[] data = new byte[16];
+
+		// Act
+		PackedDecimal.encode(value, true, data, 0, 16);
+
+		// Assert
+		Assert.assertEquals("1234567890123456789012345678901D", hex(data));
+		Assert.assertEquals(value, PackedDecimal.decodeBig(data, 0, 16));
+	}
+
+	@Test(expected = JavaCicsException.class)
+	public void testOverflow() {
+		PackedDecimal.encode(123456L, true, new byte[3], 0, 3);
+	}
+
+	@Test(expected = JavaCicsException.class)
+	public void testInvalidDigit() {
+		PackedDecimal.decode(new byte[] { 0x1A, 0x2C }, 0, 2);
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.naskar.jmft.cics;
+
+import java.math.BigInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZonedDecimalTest {
+
+	private static String hex(byte[] data) {
+		StringBuilder sb = new StringBuilder();
+		for(byte b : data) {
+			sb.append(String.format("%02X", b));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testEncode() {
+		// Arrange
+		byte[] signed = new byte[5];
+		byte[] negative = new byte[5];
+		byte[] unsigned = new byte[5];
+
+		// Act
+		ZonedDecimal.encode(12345L, true, signed, 0, 5);
+		ZonedDecimal.encode(-12345L, true, negative, 0, 5);
+		ZonedDecimal.encode(12345L, false, unsigned, 0, 5);
+
+		// Assert
+		Assert.assertEquals("F1F2F3F4C5", hex(signed));
+		Assert.assertEquals("F1F2F3F4D5", hex(negative));
+		Assert.assertEquals("F1F2F3F4F5", hex(unsigned));
+	}
+
+	@Test
+	public void testEncodeBig() {
+		// Arrange
+		BigInteger value = new BigInteger("12345678901234567890");
+		byte[] signed = new byte[20];
+		byte[] negative = new byte[20];
+
+		// Act
+		ZonedDecimal.encode(value, true, signed, 0, 20);
+		ZonedDecimal.encode(value.negate(), true, negative, 0, 20);
+
+		// Assert
+		Assert.assertEquals("F1F2F3F4F5F6F7F8F9F0F1F2F3F4F5F6F7F8F9C0", hex(signed));
+		Assert.assertEquals("F1F2F3F4F5F6F7F8F9F0F1F2F3F4F5F6F7F8F9D0", hex(negative));
+	}
+
+	@Test
+	public void testDecode() {
+		// Arrange
+		byte[] positive = { (byte) 0xF1, (byte) 0xF2, (byte) 0xC3 };
+		byte[] unsigned = { (byte) 0xF1, (byte) 0xF2, (byte) 0xF3 };
+		byte[] negative = { (byte) 0xF1, (byte) 0xF2, (byte) 0xD3 };
+
+		// Act
+		long p = ZonedDecimal.decode(positive, 0, 3);
+		long u = ZonedDecimal.decode(unsigned, 0, 3);
+		long n = ZonedDecimal.decode(negative, 0, 3);
+
+		// Assert
+		Assert.assertEquals(123L, p);
+		Assert.assertEquals(123L, u);
+		Assert.assertEquals(-123L, n);
+	}
+
+	@Test(expected = JavaCicsException.class)
+	public void testOverflow() {
+		ZonedDecimal.encode(123456L, true, new byte[5], 0, 5);
+	}
+
+}
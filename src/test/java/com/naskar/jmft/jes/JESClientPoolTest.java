@@ -0,0 +1,105 @@
+package com.naskar.jmft.jes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.naskar.jmft.pool.ConnectionFactory;
+
+public class JESClientPoolTest {
+
+	/**
+	 * Session that accepts the SITE commands without a server.
+	 */
+	public static class Session extends JESClient {
+
+		private final List<String> sites = new ArrayList<String>();
+
+		@Override
+		public boolean isConnected() {
+			return true;
+		}
+
+		@Override
+		public boolean isAvailable() {
+			return true;
+		}
+
+		@Override
+		public int site(String parameters) {
+			sites.add(parameters);
+			track(parameters, true);
+			return 200;
+		}
+
+		@Override
+		public int getReplyCode() {
+			return 200;
+		}
+
+		@Override
+		public String getReplyString() {
+			return "200 SITE command was accepted";
+		}
+
+	}
+
+	private static JESClientPool pool() {
+		return new JESClientPool(new ConnectionFactory<JESClient>() {
+
+			@Override
+			public JESClient create() {
+				return new Session();
+			}
+
+			@Override
+			public boolean isValid(JESClient connection) {
+				return true;
+			}
+
+			@Override
+			public void destroy(JESClient connection) {
+			}
+
+		}, 0, 2, 0, 1000);
+	}
+
+	@Test
+	public void testReleaseFilter() throws Exception {
+		// Arrange
+		JESClientPool target = pool();
+		Session first = (Session) target.borrow(JESClient.FILETYPE_JES);
+		first.setNameFilter("JOB1");
+		first.setOwnerFilter("USER2");
+		target.release(first);
+
+		// Act
+		Session second = (Session) target.borrow(JESClient.FILETYPE_JES);
+		second.setFileTypeJES();
+
+		// Assert
+		Assert.assertSame(first, second);
+		Assert.assertEquals("FILETYPE=JES JESJOBNAME=* JESOWNER=*", second.sites.get(second.sites.size() - 1));
+	}
+
+	@Test
+	public void testBorrowDefaultFilter() throws Exception {
+		// Arrange
+		JESClientPool target = pool();
+		Session filtered = (Session) target.borrow(JESClient.FILETYPE_JES);
+		Session plain = (Session) target.borrow(JESClient.FILETYPE_JES);
+		filtered.setNameFilter("JOB1");
+		plain.setFileTypeJES();
+		target.release(plain);
+		target.release(filtered);
+
+		// Act
+		JESClient result = target.borrow(JESClient.FILETYPE_JES);
+
+		// Assert
+		Assert.assertSame(plain, result);
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.naskar.jmft.jes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JESClientTest {
+
+	/**
+	 * Session in JES mode that retrieves a spool without a server.
+	 */
+	public static class Spool extends JESClient {
+
+		private int completed;
+
+		Spool() {
+			track("FILETYPE=JES JESJOBNAME=* JESOWNER=*", true);
+		}
+
+		@Override
+		public InputStream retrieveFileStream(String remote) throws IOException {
+			return new ByteArrayInputStream((remote + " LINE 1\nLINE 2\nIEF142I STEP1 RC 0000\n").getBytes(StandardCharsets.ISO_8859_1));
+		}
+
+		@Override
+		public boolean completePendingCommand() throws IOException {
+			completed++;
+			return true;
+		}
+
+	}
+
+	@Test
+	public void testTrackFileType() {
+		// Arrange
+		JESClient target = new JESClient();
+
+		// Act
+		target.track("FILETYPE=JES JESJOBNAME=* JESOWNER=USER1", true);
+		String jes = target.getFileType();
+		target.track("filetype=seq LRECL=80", true);
+		String seq = target.getFileType();
+
+		// Assert
+		Assert.assertEquals(JESClient.FILETYPE_JES, jes);
+		Assert.assertEquals(JESClient.FILETYPE_SEQ, seq);
+	}
+
+	@Test
+	public void testReadFileLines() throws Exception {
+		// Arrange
+		Spool target = new Spool();
+
+		// Act
+		List<String> result = null;
+		try(Stream<String> lines = target.readFileLines("JOB00001", StandardCharsets.ISO_8859_1)) {
+			result = lines.filter(l -> l.startsWith("IEF")).collect(Collectors.toList());
+		}
+
+		// Assert
+		Assert.assertEquals(1, result.size());
+		Assert.assertEquals("IEF142I STEP1 RC 0000", result.get(0));
+		Assert.assertEquals(1, target.completed);
+	}
+
+	@Test
+	public void testReadFileConsumer() throws Exception {
+		// Arrange
+		Spool target = new Spool();
+		List<String> result = new ArrayList<String>();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// Act
+		target.readFileLines("JOB00001.2", StandardCharsets.ISO_8859_1, result::add);
+		long count = target.readFile("JOB00001", out);
+
+		// Assert
+		Assert.assertEquals(3, result.size());
+		Assert.assertEquals("JOB00001.2 LINE 1", result.get(0));
+		Assert.assertEquals(out.size(), count);
+		Assert.assertEquals(2, target.completed);
+	}
+
+	@Test
+	public void testTrackFailed() {
+		// Arrange
+		JESClient target = new JESClient();
+		target.track("FILETYPE=SEQ", true);
+
+		// Act
+		target.track("FILETYPE=JES", false);
+
+		// Assert
+		Assert.assertNull(target.getFileType());
+	}
+
+}
@@ -1,10 +1,179 @@
 package com.naskar.jmft.jes;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPFile;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.naskar.jmft.pool.ConnectionFactory;
 
 public class JESJobTest {
 	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Session with a job of 3 spool files, each one with byteCount bytes.
+	 */
+	public static class Spool extends JESClient {
+		
+		private final int byteCount;
+		
+		Spool(int byteCount) {
+			this.byteCount = byteCount;
+			track("FILETYPE=JES JESJOBNAME=* JESOWNER=*", true);
+		}
+		
+		private static FTPFile file(String raw) {
+			FTPFile file = new FTPFile();
+			file.setRawListing(raw);
+			return file;
+		}
+		
+		@Override
+		public FTPFile[] listFiles(String pathname) throws IOException {
+			return new FTPFile[] {
+				file("JOBNAME  JOBID    OWNER    STATUS CLASS"),
+				file("         001 JES2              A JESMSGLG " + byteCount),
+				file("         002 JES2              A JESJCL   " + byteCount),
+				file("         003 STEP1    COMPILE  A SYSPRINT " + byteCount),
+				file("3 spool files")
+			};
+		}
+		
+		@Override
+		public InputStream retrieveFileStream(String remote) throws IOException {
+			byte[] data = new byte[20];
+			Arrays.fill(data, (byte) 'A');
+			return new ByteArrayInputStream(data);
+		}
+		
+		@Override
+		public boolean completePendingCommand() throws IOException {
+			return true;
+		}
+		
+		@Override
+		public int type(int fileType) {
+			return 200;
+		}
+		
+	}
+	
+	private static Spool binary(int byteCount) throws IOException {
+		Spool spool = new Spool(byteCount);
+		spool.setFileType(FTP.BINARY_FILE_TYPE);
+		return spool;
+	}
+	
+	private static JESClientPool pool(int byteCount) {
+		return pool(byteCount, false, new AtomicInteger());
+	}
+	
+	private static JESClientPool pool(final int byteCount, final boolean binary, final AtomicInteger destroyed) {
+		return new JESClientPool(new ConnectionFactory<JESClient>() {
+
+			@Override
+			public JESClient create() throws IOException {
+				return binary ? binary(byteCount) : new Spool(byteCount);
+			}
+
+			@Override
+			public boolean isValid(JESClient connection) {
+				return true;
+			}
+
+			@Override
+			public void destroy(JESClient connection) {
+				destroyed.incrementAndGet();
+			}
+
+		}, 0, 2, 0, 5000);
+	}
+	
+	@Test
+	public void testDownloadAll() throws Exception {
+		// Arrange
+		JESJob target = new JESJob(null, "JOB00054");
+		Path dir = folder.getRoot().toPath().resolve("JOB00054");
+		
+		// Act
+		List<Path> result = target.downloadAll(dir, pool(18), 3);
+		
+		// Assert
+		Assert.assertEquals(3, result.size());
+		Assert.assertEquals("JOB00054.1.JESMSGLG.txt", result.get(0).getFileName().toString());
+		Assert.assertEquals("JOB00054.3.SYSPRINT.txt", result.get(2).getFileName().toString());
+		for(Path path : result) {
+			Assert.assertEquals(20, Files.size(path));
+		}
+		Assert.assertEquals("COMPILE", target.getSpoolFiles().get(2).getProcedure());
+	}
+	
+	@Test
+	public void testDownloadAllIncomplete() throws Exception {
+		// Arrange
+		AtomicInteger destroyed = new AtomicInteger();
+		JESClientPool pool = pool(100, true, destroyed);
+		JESJob target = new JESJob(null, "JOB00054");
+		Path dir = folder.getRoot().toPath().resolve("JOB00054");
+		
+		// Act
+		IOException error = null;
+		try {
+			target.downloadAll(dir, pool, 2);
+		} catch (IOException e) {
+			error = e;
+		}
+		
+		// Assert
+		Assert.assertNotNull(error);
+		Assert.assertTrue(error.getMessage().startsWith("Spool file incomplete: "));
+		Assert.assertEquals(0, destroyed.get());
+		Assert.assertEquals(pool.getSize(), pool.getIdle());
+		try(Stream<Path> files = Files.list(dir)) {
+			Assert.assertEquals(0, files.count());
+		}
+	}
+	
+	@Test
+	public void testDownloadAllText() throws Exception {
+		// Arrange: the text transfer dropped the trailing blanks
+		JESJob target = new JESJob(null, "JOB00054");
+		
+		// Act
+		List<Path> result = target.downloadAll(folder.getRoot().toPath(), pool(100), 2);
+		
+		// Assert
+		Assert.assertEquals(3, result.size());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDownloadAllParallelism() throws Exception {
+		new JESJob(null, "JOB00054").downloadAll(folder.getRoot().toPath(), pool(18), 0);
+	}
+	
+	@Test(expected = IOException.class)
+	public void testDownloadIncomplete() throws Exception {
+		// Arrange
+		JESJob target = new JESJob(binary(100), "JOB00054");
+		
+		// Act
+		target.downloadAll(folder.getRoot().toPath());
+	}
+	
 	@Test
 	public void testRC0000() {
 		// Arrange
@@ -0,0 +1,124 @@
+package com.naskar.jmft.jes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JESJobWatcherTest {
+
+	private final AtomicInteger lists = new AtomicInteger();
+
+	private static JESJob job(String details) {
+		JESJob job = new JESJob(null);
+		job.parseDetails(details);
+		return job;
+	}
+
+	/**
+	 * JOB00001 ends on the second LIST, JOB00002 on the third, JOB00003 never.
+	 */
+	private List<JESJob> list() {
+		int n = lists.incrementAndGet();
+		List<JESJob> jobs = new ArrayList<JESJob>();
+		jobs.add(job(n >= 2 
+				? "USER1A  JOB00001 USER1 OUTPUT A RC=0004 3 spool files  " 
+				: "USER1A  JOB00001 USER1 ACTIVE A"));
+		jobs.add(job(n >= 3 
+				? "USER1B  JOB00002 USER1 OUTPUT A ABEND=806 3 spool files  " 
+				: "USER1B  JOB00002 USER1 INPUT  A"));
+		jobs.add(job("USER1C  JOB00003 USER1 ACTIVE A"));
+		return jobs;
+	}
+
+	@Test
+	public void testWatch() throws Exception {
+		// Arrange
+		try(JESJobWatcher target = new JESJobWatcher(() -> list(), handle -> null, 10, 40)) {
+
+			// Act
+			CompletableFuture<JESJob> job1 = target.watch(new JESJob(null, "JOB00001"));
+			CompletableFuture<JESJob> job2 = target.watch(new JESJob(null, "JOB00002"));
+
+			// Assert
+			JESJob result1 = job1.get(5, TimeUnit.SECONDS);
+			JESJob result2 = job2.get(5, TimeUnit.SECONDS);
+			Assert.assertEquals("USER1A", result1.getName());
+			Assert.assertEquals(Integer.valueOf(4), result1.getReturnCode());
+			Assert.assertEquals(Integer.valueOf(806), result2.getAbendCode());
+			Assert.assertEquals(3, lists.get());
+			Assert.assertEquals(0, target.getWatched());
+		}
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		// Arrange
+		try(JESJobWatcher target = new JESJobWatcher(() -> list(), handle -> null, 10, 20)) {
+
+			// Act
+			CompletableFuture<JESJob> job3 = target.watch(new JESJob(null, "JOB00003"), 100);
+
+			// Assert
+			try {
+				job3.get(5, TimeUnit.SECONDS);
+				Assert.fail();
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof TimeoutException);
+			}
+		}
+	}
+
+	@Test
+	public void testNotListed() throws Exception {
+		// Arrange
+		final AtomicInteger finds = new AtomicInteger();
+		try(JESJobWatcher target = new JESJobWatcher(() -> list(), handle -> {
+			finds.incrementAndGet();
+			return job("USER1D  " + handle + " USER1 OUTPUT A RC=0000 2 spool files  ");
+		}, 10, 20)) {
+
+			// Act
+			CompletableFuture<JESJob> job4 = target.watch(new JESJob(null, "JOB00004"));
+
+			// Assert
+			JESJob result = job4.get(5, TimeUnit.SECONDS);
+			Assert.assertEquals("USER1D", result.getName());
+			Assert.assertEquals(Integer.valueOf(0), result.getReturnCode());
+			Assert.assertEquals(1, finds.get());
+		}
+	}
+
+	@Test
+	public void testNotFound() throws Exception {
+		// Arrange
+		final AtomicInteger finds = new AtomicInteger();
+		try(JESJobWatcher target = new JESJobWatcher(() -> list(), handle -> {
+			finds.incrementAndGet();
+			return null;
+		}, 10, 20)) {
+
+			// Act
+			CompletableFuture<JESJob> job4 = target.watch(new JESJob(null, "JOB00004"));
+
+			// Assert
+			try {
+				job4.get(5, TimeUnit.SECONDS);
+				Assert.fail();
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof IOException);
+				Assert.assertEquals("Job not found: JOB00004", e.getCause().getMessage());
+			}
+			Assert.assertEquals(JESJobWatcher.MAX_MISSING, finds.get());
+			Assert.assertEquals(0, target.getWatched());
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package com.naskar.jmft.jes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.naskar.jmft.pool.ConnectionFactory;
+
+public class JESSubmitterTest {
+
+	private static final AtomicInteger ids = new AtomicInteger();
+	private static final AtomicInteger inFlight = new AtomicInteger();
+	private static final AtomicInteger peak = new AtomicInteger();
+	private static final Set<String> submitted = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Session that submits without a server.
+	 */
+	public static class Session extends JESClient {
+
+		@Override
+		public boolean isConnected() {
+			return true;
+		}
+
+		@Override
+		public boolean isAvailable() {
+			return true;
+		}
+
+		@Override
+		public JESJob submit(String sourceJCL) throws IOException {
+			peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+			JESJob job = new JESJob(this, String.format("JOB%05d", ids.incrementAndGet()));
+			submitted.add(job.getHandle());
+			return job;
+		}
+
+		@Override
+		public JESJob submit(InputStream jclFile) throws IOException {
+			return submit("");
+		}
+
+		@Override
+		public String readFile(String handle) throws IOException {
+			return "SPOOL " + handle;
+		}
+
+	}
+
+	private static JESClientPool pool(int max) {
+		return new JESClientPool(new ConnectionFactory<JESClient>() {
+
+			@Override
+			public JESClient create() {
+				return new Session();
+			}
+
+			@Override
+			public boolean isValid(JESClient connection) {
+				return true;
+			}
+
+			@Override
+			public void destroy(JESClient connection) {
+			}
+
+		}, 0, max, 0, 5000);
+	}
+
+	/**
+	 * All the submitted jobs ended with RC=0000.
+	 */
+	private static List<JESJob> list() {
+		List<JESJob> jobs = new ArrayList<JESJob>();
+		for(String handle : submitted) {
+			JESJob job = new JESJob(null);
+			job.parseDetails("USER1A  " + handle + " USER1 OUTPUT A RC=0000 3 spool files  ");
+			jobs.add(job);
+		}
+		return jobs;
+	}
+
+	@Test
+	public void testSubmit() throws Exception {
+		// Arrange
+		List<CompletableFuture<JESJob>> futures = new ArrayList<CompletableFuture<JESJob>>();
+
+		try(JESSubmitter target = new JESSubmitter(pool(8), 3, new JESJobWatcher(() -> list(), handle -> null, 10, 20))) {
+
+			// Act
+			for(int i = 0; i < 20; i++) {
+				futures.add(target.submit("//JOB1 JOB"));
+			}
+
+			// Assert
+			for(CompletableFuture<JESJob> future : futures) {
+				JESJob job = future.get(5, TimeUnit.SECONDS);
+				Assert.assertTrue(job.getHandle().startsWith("JOB"));
+				Assert.assertNull(job.getClientJES());
+			}
+			Assert.assertTrue(peak.get() <= 3);
+		}
+	}
+
+	@Test
+	public void testSubmitAndWait() throws Exception {
+		// Arrange
+		try(JESSubmitter target = new JESSubmitter(pool(2), 2, new JESJobWatcher(() -> list(), handle -> null, 10, 20))) {
+
+			// Act
+			JESJob job = target.submitAndWait("//JOB1 JOB", 5000).get(5, TimeUnit.SECONDS);
+
+			// Assert
+			Assert.assertEquals(Integer.valueOf(0), job.getReturnCode());
+			Assert.assertEquals("SPOOL " + job.getHandle(), job.getSpool());
+		}
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		// Arrange
+		List<CompletableFuture<JESJob>> futures = new ArrayList<CompletableFuture<JESJob>>();
+		JESSubmitter target = new JESSubmitter(pool(1), 1, new JESJobWatcher(() -> list(), handle -> null, 10, 20));
+		for(int i = 0; i < 10; i++) {
+			futures.add(target.submit("//JOB1 JOB"));
+		}
+
+		// Act
+		target.close();
+		CompletableFuture<JESJob> after = target.submit("//JOB1 JOB");
+
+		// Assert: none is left pending
+		int cancelled = 0;
+		for(CompletableFuture<JESJob> future : futures) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+			} catch(CancellationException e) {
+				cancelled++;
+			} catch(ExecutionException e) {
+				// the one running was interrupted
+			}
+		}
+		Assert.assertTrue(cancelled > 0);
+		Assert.assertTrue(after.isCancelled());
+	}
+
+}
@@ -0,0 +1,221 @@
+package com.naskar.jmft.pool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConnectionPoolTest {
+
+	public static class Connection {
+
+		private boolean open = true;
+
+	}
+
+	public static class Factory implements ConnectionFactory<Connection> {
+
+		private final AtomicInteger created = new AtomicInteger();
+		private final AtomicInteger destroyed = new AtomicInteger();
+
+		@Override
+		public Connection create() {
+			created.incrementAndGet();
+			return new Connection();
+		}
+
+		@Override
+		public boolean isValid(Connection connection) {
+			return connection.open;
+		}
+
+		@Override
+		public void destroy(Connection connection) {
+			destroyed.incrementAndGet();
+			connection.open = false;
+		}
+
+	}
+
+	@Test
+	public void testReuse() {
+		// Arrange
+		Factory factory = new Factory();
+		ConnectionPool<Connection> target = new ConnectionPool<Connection>(factory, 0, 2, 0, 100);
+
+		// Act
+		Connection first = target.borrow();
+		target.release(first);
+		Connection second = target.borrow();
+
+		// Assert
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, factory.created.get());
+		Assert.assertEquals(1, target.getSize());
+	}
+
+	@Test
+	public void testHealthCheck() {
+		// Arrange
+		Factory factory = new Factory();
+		ConnectionPool<Connection> target = new ConnectionPool<Connection>(factory, 0, 2, 0, 100);
+		Connection first = target.borrow();
+		target.release(first);
+		first.open = false;
+
+		// Act
+		Connection second = target.borrow();
+
+		// Assert
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(2, factory.created.get());
+		Assert.assertEquals(1, factory.destroyed.get());
+		Assert.assertEquals(1, target.getSize());
+	}
+
+	@Test
+	public void testMinSize() {
+		// Arrange
+		Factory factory = new Factory();
+		ConnectionPool<Connection> target = new ConnectionPool<Connection>(factory, 2, 3, 0, 100);
+
+		// Act
+		target.borrow();
+
+		// Assert
+		Assert.assertEquals(2, factory.created.get());
+		Assert.assertEquals(2, target.getSize());
+		Assert.assertEquals(1, target.getIdle());
+	}
+
+	@Test
+	public void testHealthCheckOutsideLock() throws Exception {
+		// Arrange
+		final CountDownLatch checking = new CountDownLatch(1);
+		final CountDownLatch checked = new CountDownLatch(1);
+		Factory factory = new Factory() {
+			@Override
+			public boolean isValid(Connection connection) {
+				checking.countDown();
+				try {
+					checked.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.isValid(connection);
+			}
+		};
+		final ConnectionPool<Connection> target = new ConnectionPool<Connection>(factory, 0, 2, 0, 100);
+		final Connection first = target.borrow();
+		target.release(first);
+		Thread slow = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				target.borrow();
+			}
+		});
+		slow.start();
+		checking.await();
+
+		// Act
+		Connection second = target.borrow();
+		int idle = target.getIdle();
+		checked.countDown();
+		slow.join();
+
+		// Assert
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(0, idle);
+		Assert.assertEquals(2, target.getSize());
+	}
+
+	@Test
+	public void testBorrowPreferred() {
+		// Arrange
+		Factory factory = new Factory();
+		ConnectionPool<Connection> target = new ConnectionPool<Connection>(factory, 0, 3, 0, 100);
+		Connection first = target.borrow();
+		Connection second = target.borrow();
+		target.release(first);
+		target.release(second);
+
+		// Act
+		Connection preferred = target.borrow(c -> c == first);
+		Connection other = target.borrow(c -> false);
+
+		// Assert
+		Assert.assertSame(first, preferred);
+		Assert.assertSame(second, other);
+		Assert.assertEquals(2, factory.created.get());
+	}
+
+	@Test(expected = PoolException.class)
+	public void testBorrowTimeout() {
+		// Arrange
+		ConnectionPool<Connection> target = new ConnectionPool<Connection>(new Factory(), 0, 1, 0, 50);
+		target.borrow();
+
+		// Act
+		target.borrow();
+	}
+
+	@Test
+	public void testInvalidate() {
+		// Arrange
+		Factory factory = new Factory();
+		ConnectionPool<Connection> target = new ConnectionPool<Connection>(factory, 0, 1, 0, 50);
+		Connection first = target.borrow();
+
+		// Act
+		target.invalidate(first);
+		Connection second = target.borrow();
+
+		// Assert
+		Assert.assertNotSame(first, second);
+		Assert.assertFalse(first.open);
+	}
+
+	@Test
+	public void testEvict() throws Exception {
+		// Arrange
+		Factory factory = new Factory();
+		ConnectionPool<Connection> target = new ConnectionPool<Connection>(factory, 1, 3, 10, 50);
+		Connection a = target.borrow();
+		Connection b = target.borrow();
+		Connection c = target.borrow();
+		target.release(a);
+		target.release(b);
+		target.release(c);
+		Thread.sleep(20);
+
+		// Act
+		target.evict();
+
+		// Assert
+		Assert.assertEquals(1, target.getSize());
+		Assert.assertEquals(2, factory.destroyed.get());
+		Assert.assertSame(c, target.borrow());
+		target.close();
+	}
+
+	@Test
+	public void testEvictDisabled() {
+		// Arrange
+		Factory factory = new Factory();
+		ConnectionPool<Connection> target = new ConnectionPool<Connection>(factory, 0, 2, 0, 50);
+		Connection a = target.borrow();
+		Connection b = target.borrow();
+		target.release(a);
+		target.release(b);
+
+		// Act
+		target.evict();
+
+		// Assert
+		Assert.assertEquals(2, target.getIdle());
+		Assert.assertEquals(0, factory.destroyed.get());
+		target.close();
+	}
+
+}